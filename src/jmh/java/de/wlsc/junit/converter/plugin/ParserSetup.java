@@ -0,0 +1,61 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+
+/**
+ * The ways {@link JUnit5Converter} parses and prints a file, so the benchmarks measure the configurations of
+ * {@link ParserPool} and the skipped method bodies of {@link LazyMethodBodies} instead of JavaParser's defaults.
+ */
+public enum ParserSetup {
+  PRETTY_PRINT(OutputMode.PRETTY_PRINT, false),
+  LEXICAL_PRESERVING(OutputMode.LEXICAL_PRESERVING, false),
+  LAZY_METHOD_BODIES(OutputMode.LEXICAL_PRESERVING, true);
+
+  private final OutputMode outputMode;
+  private final boolean lazyMethodBodies;
+
+  ParserSetup(final OutputMode outputMode, final boolean lazyMethodBodies) {
+    this.outputMode = outputMode;
+    this.lazyMethodBodies = lazyMethodBodies;
+  }
+
+  public Source prepare(final String source) {
+    return new Source(lazyMethodBodies ? LazyMethodBodies.elide(source) : LazyMethodBodies.none(source));
+  }
+
+  /**
+   * A file as the parser gets it, i.e. with the bodies of helper methods skipped if the setup does so.
+   */
+  public final class Source {
+
+    private final LazyMethodBodies bodies;
+
+    private Source(final LazyMethodBodies bodies) {
+      this.bodies = bodies;
+    }
+
+    public CompilationUnit parse() {
+      return setUp(ParserPool.get(outputMode).parse(bodies.getSource()).getResult().orElseThrow());
+    }
+
+    // a copy of a parsed tree, e.g. to visit it again, the tokens of the original are copied along
+    public CompilationUnit copy(final CompilationUnit unit) {
+      return setUp(unit.clone());
+    }
+
+    public String print(final CompilationUnit unit) {
+      String printed = outputMode == OutputMode.LEXICAL_PRESERVING
+          ? LexicalPreservingPrinter.print(unit)
+          : unit.toString();
+      return bodies.restore(printed);
+    }
+
+    private CompilationUnit setUp(final CompilationUnit unit) {
+      if (outputMode == OutputMode.LEXICAL_PRESERVING) {
+        LexicalPreservingPrinter.setup(unit);
+      }
+      return unit;
+    }
+  }
+}
@@ -0,0 +1,393 @@
+package de.wlsc.junit.converter.plugin.benchmark;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import de.wlsc.junit.converter.plugin.HeadlessConverter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryManagerMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Times whole conversions, from discovery to the written files, of generated projects with thousands of JUnit 4
+ * test classes, which the benchmarks of single files cannot show: discovery, scheduling, writing and the heap of a
+ * long run. Every converted file is compared with its golden file and the live heap of every size with a stored
+ * baseline.
+ * <pre>
+ * EndToEndHarness [--sizes 1000,10000,100000] [--work DIR] [--parallelism N] [--baseline FILE]
+ *                 [--update-baseline FILE] [--tolerance 0.25] [--write-golden DIR]
+ * </pre>
+ * The corpus is generated from the templates in {@code corpus/}, every class converts to its golden file with the
+ * same placeholders. Some files are generated below {@code build/} and must be left alone.
+ * <p>
+ * Live heap is the highest used heap right after a collection during the run, or after a full collection at its
+ * end. Unlike the peak of the used heap it does not depend on how much garbage the collector lets pile up, it still
+ * depends on the collector and the heap sizes though. {@code ./gradlew endToEndBenchmark} pins both, the live heap
+ * is only compared with a baseline recorded with the same ones.
+ * <p>
+ * Throughput depends on the machine, it is only compared with a baseline recorded on the same kind of machine and
+ * JVM. {@code --update-baseline FILE} records throughput and live heap together with the machine and the heap
+ * settings, e.g. on the main branch, {@code --baseline FILE} compares a later run on the same machine with it. The
+ * stored baseline in {@value #DEFAULT_BASELINE} keeps the heap settings and live heap lines of such a file only.
+ */
+public final class EndToEndHarness {
+
+  private static final String[] TEMPLATES = {"Lifecycle", "Exceptions", "Runners", "Spring", "TemporaryFolder",
+      "Helpers", "Jupiter"};
+  private static final Pattern GENERATED_FILE = Pattern.compile("([A-Za-z]+?)(\\d+)Test\\.java");
+  private static final String NUMBER_PLACEHOLDER = "__N__";
+  private static final String PACKAGE_PLACEHOLDER = "__P__";
+  private static final int FILES_PER_PACKAGE = 100;
+  private static final int EXCLUDED_INTERVAL = 50;
+  // the placeholders stand in numeric literals too, golden files are written from instances with unique numbers
+  private static final int GOLDEN_NUMBER = 987654321;
+  private static final int GOLDEN_PACKAGE = 97531;
+  private static final String DEFAULT_BASELINE = "end-to-end-baseline.properties";
+  private static final String MACHINE = "machine";
+  private static final String HEAP_SETTINGS = "heapSettings";
+
+  private final List<Integer> sizes = new ArrayList<>(Arrays.asList(1_000, 10_000, 100_000));
+  private final List<String> converterOptions = new ArrayList<>();
+  private final Properties baseline = new Properties();
+  private final Properties measured = new Properties();
+  private Path work;
+  private Path updatedBaseline;
+  private Path goldenDirectory;
+  private double tolerance = 0.25;
+
+  public static void main(final String[] args) throws IOException {
+    EndToEndHarness harness = new EndToEndHarness(args);
+    if (harness.goldenDirectory != null) {
+      harness.writeGoldenFiles();
+      return;
+    }
+    if (!harness.run()) {
+      System.exit(1);
+    }
+  }
+
+  private EndToEndHarness(final String[] args) throws IOException {
+    try (InputStream input = EndToEndHarness.class.getResourceAsStream("/" + DEFAULT_BASELINE)) {
+      if (input != null) {
+        baseline.load(input);
+      }
+    }
+    for (int i = 0; i < args.length; i++) {
+      String value = i + 1 < args.length ? args[i + 1] : null;
+      switch (args[i]) {
+        case "--sizes":
+          sizes.clear();
+          Arrays.stream(required(args[i], value).split(",")).map(Integer::valueOf).forEach(sizes::add);
+          break;
+        case "--work":
+          work = Paths.get(required(args[i], value));
+          break;
+        case "--parallelism":
+          converterOptions.addAll(Arrays.asList(args[i], required(args[i], value)));
+          break;
+        case "--baseline":
+          baseline.clear();
+          try (Reader reader = Files.newBufferedReader(Paths.get(required(args[i], value)), UTF_8)) {
+            baseline.load(reader);
+          }
+          break;
+        case "--update-baseline":
+          updatedBaseline = Paths.get(required(args[i], value));
+          break;
+        case "--tolerance":
+          tolerance = Double.parseDouble(required(args[i], value));
+          break;
+        case "--write-golden":
+          goldenDirectory = Paths.get(required(args[i], value));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+      i++;
+    }
+  }
+
+  private boolean run() throws IOException {
+    Path root = work != null ? work : Files.createTempDirectory("junit5-converter-harness");
+    boolean passed = true;
+    measured.setProperty(MACHINE, machine());
+    measured.setProperty(HEAP_SETTINGS, heapSettings());
+    if (!machine().equals(baseline.getProperty(MACHINE))) {
+      System.out.println("Throughput is not compared, the baseline was not recorded on this kind of machine");
+    }
+    if (!heapSettings().equals(baseline.getProperty(HEAP_SETTINGS))) {
+      System.out.println("Live heap is not compared, the baseline was recorded with " + baseline.getProperty(
+          HEAP_SETTINGS) + " instead of " + heapSettings() + ", run ./gradlew endToEndBenchmark");
+    }
+    System.out.printf("%8s %9s %9s %14s %11s%n", "files", "wall s", "files/s", "live heap MB", "mismatches");
+    for (int size : sizes) {
+      Path project = root.resolve("corpus-" + size);
+      deleteRecursively(project);
+      generate(project, size);
+
+      System.gc();
+      LiveHeap liveHeap = new LiveHeap();
+      long start = System.nanoTime();
+      List<String> converterArgs = new ArrayList<>();
+      converterArgs.add(project.toString());
+      converterArgs.addAll(converterOptions);
+      int failed = HeadlessConverter.convert(new PrintStream(OutputStream.nullOutputStream()),
+          converterArgs.toArray(new String[0]));
+      double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+      long liveHeapBytes = liveHeap.finish();
+
+      int mismatches = verify(project) + failed;
+      double filesPerSecond = size / seconds;
+      double liveHeapMegabytes = liveHeapBytes / (1024.0 * 1024.0);
+      System.out.printf("%8d %9.1f %9.1f %14.1f %11d%n", size, seconds, filesPerSecond, liveHeapMegabytes,
+          mismatches);
+      measured.setProperty(size + ".filesPerSecond", String.format("%.0f", filesPerSecond));
+      measured.setProperty(size + ".liveHeapMegabytes", String.format("%.0f", liveHeapMegabytes));
+      passed &= mismatches == 0 && compareWithBaseline(size, filesPerSecond, liveHeapMegabytes);
+      deleteRecursively(project);
+    }
+    if (work == null) {
+      deleteRecursively(root);
+    }
+    if (updatedBaseline != null) {
+      try (Writer writer = Files.newBufferedWriter(updatedBaseline, UTF_8)) {
+        measured.store(writer, "end-to-end baseline, see EndToEndHarness");
+      }
+      System.out.println("Baseline written to " + updatedBaseline.toAbsolutePath());
+    }
+    return passed;
+  }
+
+  private boolean compareWithBaseline(final int size, final double filesPerSecond, final double liveHeapMegabytes) {
+    String expectedFilesPerSecond = machine().equals(baseline.getProperty(MACHINE))
+        ? baseline.getProperty(size + ".filesPerSecond")
+        : null;
+    String expectedLiveHeap = heapSettings().equals(baseline.getProperty(HEAP_SETTINGS))
+        ? baseline.getProperty(size + ".liveHeapMegabytes")
+        : null;
+    if (expectedFilesPerSecond == null && expectedLiveHeap == null) {
+      System.out.printf("No baseline for %d files%n", size);
+      return true;
+    }
+    boolean passed = true;
+    if (expectedFilesPerSecond != null
+        && filesPerSecond < Double.parseDouble(expectedFilesPerSecond) * (1 - tolerance)) {
+      System.out.printf("Regression: %.1f files/s for %d files, baseline is %s%n", filesPerSecond, size,
+          expectedFilesPerSecond);
+      passed = false;
+    }
+    if (expectedLiveHeap != null && liveHeapMegabytes > Double.parseDouble(expectedLiveHeap) * (1 + tolerance)) {
+      System.out.printf("Regression: %.1f MB live heap for %d files, baseline is %s MB%n", liveHeapMegabytes, size,
+          expectedLiveHeap);
+      passed = false;
+    }
+    return passed;
+  }
+
+  private static String machine() {
+    return String.format("%s %s, %d cores, %s %s", System.getProperty("os.name"), System.getProperty("os.arch"),
+        Runtime.getRuntime().availableProcessors(), System.getProperty("java.vm.name"),
+        System.getProperty("java.version"));
+  }
+
+  // the collector and the heap sizes set on the command line, e.g. "Copy, MarkSweepCompact -Xmn128m -Xms1g -Xmx1g"
+  private static String heapSettings() {
+    String collectors = ManagementFactory.getGarbageCollectorMXBeans().stream()
+        .map(MemoryManagerMXBean::getName)
+        .collect(Collectors.joining(", "));
+    String sizes = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+        .filter(argument -> argument.startsWith("-Xms") || argument.startsWith("-Xmx") || argument.startsWith("-Xmn"))
+        .sorted()
+        .collect(Collectors.joining(" "));
+    return sizes.isEmpty() ? collectors : collectors + " " + sizes;
+  }
+
+  // every template in turn, every EXCLUDED_INTERVAL-th file below an excluded build directory
+  private static void generate(final Path project, final int size) throws IOException {
+    String[] templates = new String[TEMPLATES.length];
+    for (int i = 0; i < TEMPLATES.length; i++) {
+      templates[i] = resource("corpus/" + TEMPLATES[i] + ".java.txt");
+    }
+    for (int number = 0; number < size; number++) {
+      int template = number % TEMPLATES.length;
+      int packageNumber = number / FILES_PER_PACKAGE;
+      Path sourceRoot = number % EXCLUDED_INTERVAL == EXCLUDED_INTERVAL - 1
+          ? project.resolve("build/generated/java")
+          : project.resolve("src/test/java");
+      Path directory = sourceRoot.resolve("corpus").resolve("p" + packageNumber);
+      Files.createDirectories(directory);
+      Files.writeString(directory.resolve(TEMPLATES[template] + number + "Test.java"),
+          instantiate(templates[template], number, packageNumber), UTF_8);
+    }
+  }
+
+  private static int verify(final Path project) throws IOException {
+    String[] templates = new String[TEMPLATES.length];
+    String[] goldenFiles = new String[TEMPLATES.length];
+    for (int i = 0; i < TEMPLATES.length; i++) {
+      templates[i] = resource("corpus/" + TEMPLATES[i] + ".java.txt");
+      goldenFiles[i] = resource("corpus/" + TEMPLATES[i] + ".golden.txt");
+    }
+    Path excluded = project.resolve("build");
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(project)) {
+      files = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+    }
+    int mismatches = 0;
+    for (Path file : files) {
+      Matcher matcher = GENERATED_FILE.matcher(file.getFileName().toString());
+      int template = matcher.matches() ? Arrays.asList(TEMPLATES).indexOf(matcher.group(1)) : -1;
+      if (template < 0) {
+        System.out.println("Unexpected file: " + file);
+        mismatches++;
+        continue;
+      }
+      int number = Integer.parseInt(matcher.group(2));
+      String expected = instantiate(file.startsWith(excluded) ? templates[template] : goldenFiles[template], number,
+          number / FILES_PER_PACKAGE);
+      if (!expected.equals(Files.readString(file, UTF_8))) {
+        if (mismatches < 10) {
+          System.out.println("Differs from golden file: " + file);
+        }
+        mismatches++;
+      }
+    }
+    return mismatches;
+  }
+
+  // converts one instance of every template and turns it back into a template
+  private void writeGoldenFiles() throws IOException {
+    Path project = Files.createTempDirectory("junit5-converter-golden");
+    Path directory = project.resolve("src/test/java/corpus/p" + GOLDEN_PACKAGE);
+    Files.createDirectories(directory);
+    for (String template : TEMPLATES) {
+      Files.writeString(directory.resolve(template + GOLDEN_NUMBER + "Test.java"),
+          instantiate(resource("corpus/" + template + ".java.txt"), GOLDEN_NUMBER, GOLDEN_PACKAGE), UTF_8);
+    }
+    if (HeadlessConverter.convert(System.out, project.toString()) > 0) {
+      throw new IllegalStateException("Corpus templates cannot be converted");
+    }
+    Files.createDirectories(goldenDirectory);
+    for (String template : TEMPLATES) {
+      String converted = Files.readString(directory.resolve(template + GOLDEN_NUMBER + "Test.java"), UTF_8);
+      Files.writeString(goldenDirectory.resolve(template + ".golden.txt"), converted
+          .replace(String.valueOf(GOLDEN_NUMBER), NUMBER_PLACEHOLDER)
+          .replace(String.valueOf(GOLDEN_PACKAGE), PACKAGE_PLACEHOLDER), UTF_8);
+    }
+    deleteRecursively(project);
+    System.out.println("Golden files written to " + goldenDirectory.toAbsolutePath());
+  }
+
+  // the used heap after every collection, as reported by the collectors, and after a full collection at the end
+  private static final class LiveHeap implements NotificationListener {
+
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .collect(Collectors.toList());
+    private final Set<String> heapPoolNames = heapPools.stream()
+        .map(MemoryPoolMXBean::getName)
+        .collect(Collectors.toSet());
+    private final AtomicLong peak = new AtomicLong();
+
+    private LiveHeap() {
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+      }
+    }
+
+    @Override
+    public void handleNotification(final Notification notification, final Object handback) {
+      if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+        return;
+      }
+      GcInfo gcInfo = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+      long used = gcInfo.getMemoryUsageAfterGc().entrySet().stream()
+          .filter(pool -> heapPoolNames.contains(pool.getKey()))
+          .mapToLong(pool -> pool.getValue().getUsed())
+          .sum();
+      peak.accumulateAndGet(used, Math::max);
+    }
+
+    long finish() {
+      System.gc();
+      // a full collection collects every pool, so their collection usage is the live heap at the end of the run
+      long used = heapPools.stream()
+          .map(MemoryPoolMXBean::getCollectionUsage)
+          .filter(Objects::nonNull)
+          .mapToLong(MemoryUsage::getUsed)
+          .sum();
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        try {
+          ((NotificationEmitter) collector).removeNotificationListener(this);
+        } catch (ListenerNotFoundException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return peak.accumulateAndGet(used, Math::max);
+    }
+  }
+
+  private static String instantiate(final String template, final int number, final int packageNumber) {
+    return template
+        .replace(NUMBER_PLACEHOLDER, String.valueOf(number))
+        .replace(PACKAGE_PLACEHOLDER, String.valueOf(packageNumber));
+  }
+
+  private static String resource(final String name) throws IOException {
+    try (InputStream input = EndToEndHarness.class.getResourceAsStream("/" + name)) {
+      if (input == null) {
+        throw new IOException("Missing resource " + name);
+      }
+      return new String(input.readAllBytes(), UTF_8);
+    }
+  }
+
+  private static void deleteRecursively(final Path directory) throws IOException {
+    if (!Files.exists(directory)) {
+      return;
+    }
+    try (Stream<Path> walk = Files.walk(directory)) {
+      for (Path path : walk.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  private static String required(final String option, final String value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Missing value for " + option);
+    }
+    return value;
+  }
+}
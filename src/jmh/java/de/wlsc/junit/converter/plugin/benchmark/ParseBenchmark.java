@@ -0,0 +1,32 @@
+package de.wlsc.junit.converter.plugin.benchmark;
+
+import com.github.javaparser.ast.CompilationUnit;
+import de.wlsc.junit.converter.plugin.ParserSetup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class ParseBenchmark {
+
+  @Param
+  private TestSources testSource;
+
+  @Param
+  private ParserSetup parserSetup;
+
+  private String source;
+
+  @Setup
+  public void setUp() {
+    source = testSource.generate();
+  }
+
+  // skipping method bodies is part of the parse, it is done once per file
+  @Benchmark
+  public CompilationUnit parse() {
+    return parserSetup.prepare(source).parse();
+  }
+}
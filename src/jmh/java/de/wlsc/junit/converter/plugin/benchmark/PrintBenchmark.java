@@ -0,0 +1,36 @@
+package de.wlsc.junit.converter.plugin.benchmark;
+
+import com.github.javaparser.ast.CompilationUnit;
+import de.wlsc.junit.converter.plugin.ParserSetup;
+import de.wlsc.junit.converter.plugin.visitor.JUnit4Visitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Thread)
+public class PrintBenchmark {
+
+  @Param
+  private TestSources testSource;
+
+  @Param
+  private ParserSetup parserSetup;
+
+  private ParserSetup.Source source;
+  private CompilationUnit unit;
+
+  @Setup
+  public void setUp() {
+    source = parserSetup.prepare(testSource.generate());
+    unit = source.parse();
+    unit.accept(new JUnit4Visitor(), null);
+  }
+
+  // prints with the printer of the setup and puts skipped method bodies back
+  @Benchmark
+  public String print() {
+    return source.print(unit);
+  }
+}
@@ -0,0 +1,116 @@
+package de.wlsc.junit.converter.plugin.benchmark;
+
+/**
+ * Generates JUnit 4 test classes of different shapes for the benchmarks.
+ */
+public enum TestSources {
+
+  // a handful of tests, like most hand written test classes
+  SMALL {
+    @Override
+    String generate() {
+      return testClass("SmallTest", 5, 1);
+    }
+  },
+  // typical service test with setup, rules and a few dozen tests
+  TYPICAL {
+    @Override
+    String generate() {
+      return testClass("TypicalTest", 40, 1);
+    }
+  },
+  // generated test classes with thousands of test methods
+  MANY_METHODS {
+    @Override
+    String generate() {
+      return testClass("ManyMethodsTest", 2_000, 1);
+    }
+  },
+  // few tests, but deeply nested lambdas in every body
+  NESTED_LAMBDAS {
+    @Override
+    String generate() {
+      return testClass("NestedLambdasTest", 20, 40);
+    }
+  };
+
+  abstract String generate();
+
+  private static String testClass(final String className, final int testMethods, final int lambdaDepth) {
+    StringBuilder source = new StringBuilder()
+        .append("package de.wlsc.benchmark;\n\n")
+        .append("import static org.junit.Assert.assertEquals;\n")
+        .append("import static org.junit.Assert.assertTrue;\n")
+        .append("import static org.junit.Assume.assumeTrue;\n\n")
+        .append("import java.io.File;\n")
+        .append("import org.junit.After;\n")
+        .append("import org.junit.Assert;\n")
+        .append("import org.junit.Before;\n")
+        .append("import org.junit.BeforeClass;\n")
+        .append("import org.junit.Ignore;\n")
+        .append("import org.junit.Rule;\n")
+        .append("import org.junit.Test;\n")
+        .append("import org.junit.rules.TemporaryFolder;\n")
+        .append("import org.junit.runner.RunWith;\n")
+        .append("import org.mockito.junit.MockitoJUnitRunner;\n\n")
+        .append("@RunWith(MockitoJUnitRunner.class)\n")
+        .append("public class ").append(className).append(" {\n\n")
+        .append("  @Rule\n")
+        .append("  public TemporaryFolder folder = new TemporaryFolder();\n\n")
+        .append("  @BeforeClass\n")
+        .append("  public static void setUpClass() {\n  }\n\n")
+        .append("  @Before\n")
+        .append("  public void setUp() throws Exception {\n")
+        .append("    File file = folder.newFile(\"setup.txt\");\n")
+        .append("  }\n\n")
+        .append("  @After\n")
+        .append("  public void tearDown() {\n  }\n");
+
+    for (int i = 0; i < testMethods; i++) {
+      switch (i % 4) {
+        case 0:
+          source.append("\n  @Test\n")
+              .append("  public void shouldCompareValues").append(i).append("() {\n")
+              .append("    assertEquals(\"message\", ").append(i).append(", ").append(i).append(");\n")
+              .append("    Assert.assertTrue(\"message\", true);\n");
+          break;
+        case 1:
+          source.append("\n  @Test(expected = IllegalStateException.class)\n")
+              .append("  public void shouldThrow").append(i).append("() throws Exception {\n")
+              .append("    assumeTrue(\"assumption\", true);\n")
+              .append("    throw new IllegalStateException();\n");
+          break;
+        case 2:
+          source.append("\n  @Test(timeout = 100L)\n")
+              .append("  public void shouldFinishInTime").append(i).append("() {\n")
+              .append("    assertTrue(").append(i).append(" >= 0);\n");
+          break;
+        default:
+          source.append("\n  @Test\n")
+              .append("  @Ignore(\"not yet\")\n")
+              .append("  public void ignored").append(i).append("() {\n");
+          break;
+      }
+      appendNestedLambdas(source, lambdaDepth);
+      source.append("  }\n");
+    }
+    source.append("\n  private void run(final Runnable runnable) {\n")
+        .append("    runnable.run();\n")
+        .append("  }\n")
+        .append("}\n");
+    return source.toString();
+  }
+
+  private static void appendNestedLambdas(final StringBuilder source, final int depth) {
+    if (depth <= 1) {
+      return;
+    }
+    for (int i = 0; i < depth; i++) {
+      source.append("    ".repeat(i + 1)).append("run(() -> {\n");
+    }
+    source.append("    ".repeat(depth + 1)).append("assertTrue(\"nested\", true);\n");
+    for (int i = depth; i > 0; i--) {
+      source.append("    ".repeat(i)).append("});\n");
+    }
+  }
+}
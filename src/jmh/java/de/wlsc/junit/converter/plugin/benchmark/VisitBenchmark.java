@@ -0,0 +1,46 @@
+package de.wlsc.junit.converter.plugin.benchmark;
+
+import com.github.javaparser.ast.CompilationUnit;
+import de.wlsc.junit.converter.plugin.ParserSetup;
+import de.wlsc.junit.converter.plugin.visitor.JUnit4Visitor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The visitor rewrites the tree, so every invocation visits a fresh copy of a tree parsed once per trial. A setup
+ * per invocation would distort these microsecond timings, the cost of the copy alone is measured by {@link #copy()}.
+ * The lexical setups visit a copy observed by the lexical printer, as the converter does.
+ */
+@State(Scope.Thread)
+public class VisitBenchmark {
+
+  @Param
+  private TestSources testSource;
+
+  @Param
+  private ParserSetup parserSetup;
+
+  private ParserSetup.Source source;
+  private CompilationUnit unit;
+
+  @Setup
+  public void setUp() {
+    source = parserSetup.prepare(testSource.generate());
+    unit = source.parse();
+  }
+
+  @Benchmark
+  public CompilationUnit copy() {
+    return source.copy(unit);
+  }
+
+  @Benchmark
+  public CompilationUnit visit() {
+    CompilationUnit copy = source.copy(unit);
+    copy.accept(new JUnit4Visitor(), null);
+    return copy;
+  }
+}
@@ -0,0 +1,129 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hands on only the test files of a change instead of searching the whole tree, so that a team converting the
+ * tests it touches does not rewrite unrelated files. The change is either given, e.g. by the IDE's change list, or
+ * asked from git: everything changed on the branch since it forked from a base revision, uncommitted changes and
+ * new files. Deleted files and files below excluded directories are dropped.
+ */
+final class ChangedFileDiscovery implements ConversionPipeline.Discovery {
+
+  private static final long GIT_TIMEOUT_SECONDS = 60;
+
+  private final Path root;
+  private final Collection<Path> changedFiles;
+  private final DiscoveryFilter filter;
+
+  private ChangedFileDiscovery(final Path root, final Collection<Path> changedFiles, final DiscoveryFilter filter) {
+    this.root = root.toAbsolutePath().normalize();
+    this.changedFiles = changedFiles;
+    this.filter = filter;
+  }
+
+  static ChangedFileDiscovery of(final Path root, final Collection<Path> changedFiles,
+      final DiscoveryFilter filter) {
+    return new ChangedFileDiscovery(root, changedFiles, filter);
+  }
+
+  // asks git below root, paths are listed relative to it
+  static ChangedFileDiscovery sinceRevision(final Path root, final String baseRevision,
+      final DiscoveryFilter filter) throws IOException {
+    Set<Path> changedFiles = new LinkedHashSet<>();
+    for (String file : git(root, "diff", "--name-only", "--relative", "--diff-filter=ACMR", "-z",
+        baseRevision + "...HEAD")) {
+      changedFiles.add(root.resolve(file));
+    }
+    for (String file : git(root, "diff", "--name-only", "--relative", "--diff-filter=ACMR", "-z", "HEAD")) {
+      changedFiles.add(root.resolve(file));
+    }
+    for (String file : git(root, "ls-files", "--others", "--exclude-standard", "-z")) {
+      changedFiles.add(root.resolve(file));
+    }
+    return new ChangedFileDiscovery(root, changedFiles, filter);
+  }
+
+  @Override
+  public void find(final Consumer<Path> sink) {
+    for (Path file : changedFiles) {
+      Path path = file.toAbsolutePath().normalize();
+      if (path.startsWith(root) && filter.isTestFile(path.getFileName().toString()) && !isExcluded(path)
+          && Files.isRegularFile(path)) {
+        sink.accept(path);
+      }
+    }
+  }
+
+  private boolean isExcluded(final Path path) {
+    Path directory = root.relativize(path).getParent();
+    if (directory == null) {
+      return false;
+    }
+    for (Path name : directory) {
+      if (filter.isExcludedDirectory(name.toString())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // both streams go to files, so a full pipe never stalls git and the timeout covers all of its output
+  private static List<String> git(final Path directory, final String... arguments) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add("git");
+    command.addAll(Arrays.asList(arguments));
+    Path output = Files.createTempFile("junit5-converter-git", ".out");
+    Path error = Files.createTempFile("junit5-converter-git", ".err");
+    try {
+      Process process = new ProcessBuilder(command)
+          .directory(directory.toFile())
+          .redirectOutput(output.toFile())
+          .redirectError(error.toFile())
+          .start();
+      process.getOutputStream().close();
+      waitFor(process, arguments);
+      if (process.exitValue() != 0) {
+        throw new IOException("git " + String.join(" ", arguments) + " failed: "
+            + new String(Files.readAllBytes(error), UTF_8).trim());
+      }
+      List<String> files = new ArrayList<>();
+      for (String file : new String(Files.readAllBytes(output), UTF_8).split("\0")) {
+        if (!file.isEmpty()) {
+          files.add(file);
+        }
+      }
+      return files;
+    } finally {
+      Files.deleteIfExists(output);
+      Files.deleteIfExists(error);
+    }
+  }
+
+  // git waits for e.g. a lock or credentials without a terminal to ask for them
+  private static void waitFor(final Process process, final String... arguments) throws IOException {
+    try {
+      if (!process.waitFor(GIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        process.destroyForcibly();
+        throw new IOException("git " + String.join(" ", arguments) + " did not finish within " + GIT_TIMEOUT_SECONDS
+            + " seconds");
+      }
+    } catch (InterruptedException e) {
+      process.destroyForcibly();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for git", e);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package de.wlsc.junit.converter.plugin;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds the hunks of lines a conversion changed, so that reformatting leaves the untouched code between them alone.
+ * Every hunk is returned as its first and last line, zero based and inclusive, counted in the converted source.
+ * Lines the conversion only removed leave no hunk, there is nothing to reformat.
+ */
+final class ChangedLines {
+
+  static final int[] NONE = new int[0];
+  // beyond this many inserted and removed lines, e.g. a pretty printed file, a single hunk from the first to the
+  // last changed line is reformatted instead of diffing further
+  static final int MAX_EDITS = 200;
+
+  private ChangedLines() {
+  }
+
+  static int[] between(final String original, final String converted) {
+    String[] originalLines = original.split("\n", -1);
+    String[] convertedLines = converted.split("\n", -1);
+    int prefix = 0;
+    while (prefix < originalLines.length && prefix < convertedLines.length
+        && originalLines[prefix].equals(convertedLines[prefix])) {
+      prefix++;
+    }
+    int suffix = 0;
+    int originalEnd = originalLines.length - 1;
+    int convertedEnd = convertedLines.length - 1;
+    while (suffix < originalLines.length - prefix && suffix < convertedLines.length - prefix
+        && originalLines[originalEnd - suffix].equals(convertedLines[convertedEnd - suffix])) {
+      suffix++;
+    }
+    int originalCount = originalLines.length - prefix - suffix;
+    int convertedCount = convertedLines.length - prefix - suffix;
+    if (convertedCount == 0) {
+      return NONE;
+    }
+
+    boolean[] inserted = originalCount == 0
+        ? null
+        : insertedLines(originalLines, convertedLines, prefix, originalCount, convertedCount);
+    if (inserted == null) {
+      return new int[]{prefix, prefix + convertedCount - 1};
+    }
+    List<Integer> hunks = new ArrayList<>();
+    for (int line = 0; line < convertedCount; line++) {
+      if (inserted[line] && (line == 0 || !inserted[line - 1])) {
+        hunks.add(prefix + line);
+      }
+      if (inserted[line] && (line == convertedCount - 1 || !inserted[line + 1])) {
+        hunks.add(prefix + line);
+      }
+    }
+    return hunks.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  // Myers' diff of the lines between the common prefix and suffix, null if it takes more than MAX_EDITS
+  @Nullable
+  private static boolean[] insertedLines(final String[] originalLines, final String[] convertedLines,
+      final int offset, final int originalCount, final int convertedCount) {
+
+    int max = Math.min(originalCount + convertedCount, MAX_EDITS);
+    // the furthest original line reached on every diagonal k, stored at k + max + 1
+    int[] furthest = new int[2 * max + 3];
+    // the diagonals -d - 1 to d + 1 before every step d, to walk back along the shortest edit script
+    List<int[]> trace = new ArrayList<>();
+    for (int d = 0; d <= max; d++) {
+      trace.add(Arrays.copyOfRange(furthest, max - d, max + d + 3));
+      for (int k = -d; k <= d; k += 2) {
+        int x = k == -d || (k != d && furthest[k + max] < furthest[k + max + 2])
+            ? furthest[k + max + 2]
+            : furthest[k + max] + 1;
+        int y = x - k;
+        while (x < originalCount && y < convertedCount
+            && originalLines[offset + x].equals(convertedLines[offset + y])) {
+          x++;
+          y++;
+        }
+        furthest[k + max + 1] = x;
+        if (x >= originalCount && y >= convertedCount) {
+          return backtrack(trace, originalCount, convertedCount, d);
+        }
+      }
+    }
+    return null;
+  }
+
+  private static boolean[] backtrack(final List<int[]> trace, final int originalCount, final int convertedCount,
+      final int edits) {
+    boolean[] inserted = new boolean[convertedCount];
+    int x = originalCount;
+    int y = convertedCount;
+    for (int d = edits; d > 0; d--) {
+      int[] previous = trace.get(d);
+      int k = x - y;
+      boolean insertion = k == -d || (k != d && previous[k + d] < previous[k + d + 2]);
+      int previousK = insertion ? k + 1 : k - 1;
+      x = previous[previousK + d + 1];
+      y = x - previousK;
+      if (insertion) {
+        inserted[y] = true;
+      }
+    }
+    return inserted;
+  }
+}
@@ -0,0 +1,141 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the files a run has discovered, so that an interrupted run resumes with them first. Which of them are
+ * already finished is known from the {@link ConversionIndex} journal. Discovered files are written to the
+ * checkpoint as they are handed on, the conversion never waits for the discovery to finish. Once the discovery has
+ * finished, a marker line says so and a resumed run takes the files from the checkpoint alone. A run interrupted
+ * during the discovery searches the selected folder again when it resumes and hands on only the files the
+ * checkpoint does not know yet. The checkpoint is deleted once a run has processed every file.
+ */
+final class ConversionCheckpoint {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionCheckpoint.class);
+  private static final String SEPARATOR = "\t";
+  private static final String RUN_HEADER = "#run" + SEPARATOR;
+  private static final String DISCOVERED = "#discovered";
+
+  private final Path checkpointFile;
+  private final String header;
+
+  private ConversionCheckpoint(final Path checkpointFile, final Path root, final String rulesFingerprint) {
+    this.checkpointFile = checkpointFile;
+    this.header = RUN_HEADER + rulesFingerprint + SEPARATOR + root.toAbsolutePath().normalize();
+  }
+
+  static ConversionCheckpoint of(final Path checkpointFile, final Path root, final String rulesFingerprint) {
+    return new ConversionCheckpoint(checkpointFile, root, rulesFingerprint);
+  }
+
+  // resumes an interrupted run of the same folder and rules, otherwise starts a new checkpoint
+  ConversionPipeline.Discovery discovery(final ConversionPipeline.Discovery discovery) {
+    return sink -> {
+      Set<Path> known = new HashSet<>();
+      if (isResumable()) {
+        LOGGER.info("Resuming interrupted conversion from " + checkpointFile);
+        boolean discovered = replay(path -> {
+          known.add(path);
+          sink.accept(path);
+        });
+        if (discovered) {
+          return;
+        }
+      }
+      record(discovery, known, sink);
+    };
+  }
+
+  void complete() {
+    try {
+      Files.deleteIfExists(checkpointFile);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot delete conversion checkpoint " + checkpointFile, e);
+    }
+  }
+
+  private boolean isResumable() {
+    if (!Files.isRegularFile(checkpointFile)) {
+      return false;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(checkpointFile, UTF_8)) {
+      return header.equals(reader.readLine());
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read conversion checkpoint, searching for files again", e);
+      return false;
+    }
+  }
+
+  // true if the interrupted run had finished its discovery
+  private boolean replay(final Consumer<Path> sink) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(checkpointFile, UTF_8)) {
+      reader.readLine();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (DISCOVERED.equals(line)) {
+          return true;
+        }
+        Path path = Paths.get(line);
+        // deleted since, or the last line was cut off by a crash and the search finds the file again
+        if (Files.isRegularFile(path)) {
+          sink.accept(path);
+        }
+      }
+      return false;
+    }
+  }
+
+  // appends the newly discovered files to a resumed checkpoint, or rewrites it for a new run
+  private void record(final ConversionPipeline.Discovery discovery, final Set<Path> known,
+      final Consumer<Path> sink) throws IOException {
+    Files.createDirectories(Objects.requireNonNull(checkpointFile.toAbsolutePath().getParent()));
+    OpenOption[] options = known.isEmpty()
+        ? new OpenOption[]{CREATE, TRUNCATE_EXISTING, WRITE}
+        : new OpenOption[]{CREATE, APPEND};
+    try (BufferedWriter writer = Files.newBufferedWriter(checkpointFile, UTF_8, options)) {
+      if (known.isEmpty()) {
+        writer.write(header);
+        writer.newLine();
+      }
+      discovery.find(path -> {
+        Path absolutePath = path.toAbsolutePath().normalize();
+        if (known.contains(absolutePath)) {
+          return;
+        }
+        try {
+          writer.write(absolutePath.toString());
+          writer.newLine();
+          // a crashed IDE or worker keeps every file handed on so far
+          writer.flush();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        sink.accept(absolutePath);
+      });
+      writer.write(DISCOVERED);
+      writer.newLine();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
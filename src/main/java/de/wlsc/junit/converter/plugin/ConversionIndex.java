@@ -0,0 +1,202 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers the content hash of every file the converter has already processed, so unchanged files can be
+ * skipped on the next run without parsing them. Stored as one "outcome, hash, path" line per file, preceded by
+ * the fingerprint of the rewrite rules the files were converted with.
+ * <p>
+ * Every change is appended to a journal next to the index as well, which {@link #save()} folds into the index.
+ * If the IDE is closed or crashes during a run, the next run replays the journal and does not convert the
+ * finished files again. Every line is flushed right away: a converted file is already on disk when it is recorded,
+ * and converting it a second time is not safe, e.g. assertion messages would be swapped back.
+ */
+final class ConversionIndex {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionIndex.class);
+  private static final String SEPARATOR = "\t";
+  private static final String RULES_HEADER = "#rules" + SEPARATOR;
+  private static final String JOURNAL_SUFFIX = ".journal";
+  // a failed file is journaled without hash, it has to be converted again
+  private static final String NO_HASH = "-";
+
+  @Nullable
+  private final Path indexFile;
+  private final String rulesFingerprint;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private BufferedWriter journal;
+
+  private ConversionIndex(@Nullable final Path indexFile, final String rulesFingerprint) {
+    this.indexFile = indexFile;
+    this.rulesFingerprint = rulesFingerprint;
+  }
+
+  // an index which is never written, every run starts from scratch
+  static ConversionIndex inMemory() {
+    return new ConversionIndex(null, "");
+  }
+
+  static ConversionIndex load(final Path indexFile, final String rulesFingerprint) {
+    ConversionIndex index = new ConversionIndex(indexFile, rulesFingerprint);
+    try {
+      index.replay(indexFile);
+      if (!index.replay(journalFile(indexFile))) {
+        // written with other rules, new entries must not be appended to it
+        Files.deleteIfExists(journalFile(indexFile));
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      LOGGER.warn("Cannot read conversion index, starting with an empty one", e);
+      index.entries.clear();
+    }
+    return index;
+  }
+
+  // returns false if the file was written with other rules
+  private boolean replay(final Path file) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return true;
+    }
+    List<String> lines = Files.readAllLines(file, UTF_8);
+    // files converted with other rules have to be converted again
+    if (lines.isEmpty() || !lines.get(0).equals(RULES_HEADER + rulesFingerprint)) {
+      return false;
+    }
+    for (String line : lines.subList(1, lines.size())) {
+      String[] columns = line.split(SEPARATOR, 3);
+      if (columns.length != 3) {
+        // the last line of a journal may be cut off by a crash
+        continue;
+      }
+      if (NO_HASH.equals(columns[1])) {
+        entries.remove(columns[2]);
+      } else {
+        entries.put(columns[2], new Entry(ConversionOutcome.valueOf(columns[0]), columns[1]));
+      }
+    }
+    return true;
+  }
+
+  static String hash(final byte[] content) {
+    return Hashing.murmur3_128().hashBytes(content).toString();
+  }
+
+  // hashes content written in chunks, the same as hash(byte[]) of the whole content
+  static Hasher hasher() {
+    return Hashing.murmur3_128().newHasher();
+  }
+
+  static String rulesFingerprint(final Path rulesFile) throws IOException {
+    return Files.isRegularFile(rulesFile) ? hash(Files.readAllBytes(rulesFile)) : "defaults";
+  }
+
+  boolean isUpToDate(final Path path, final String hash) {
+    Entry entry = entries.get(key(path));
+    return entry != null && entry.hash.equals(hash);
+  }
+
+  // the hash a file was recorded with, e.g. to hand it on from a worker process
+  @Nullable
+  String hashOf(final Path path) {
+    Entry entry = entries.get(key(path));
+    return entry == null ? null : entry.hash;
+  }
+
+  void record(final Path path, final String hash, final ConversionOutcome outcome) {
+    String key = key(path);
+    entries.put(key, new Entry(outcome, hash));
+    appendToJournal(outcome + SEPARATOR + hash + SEPARATOR + key);
+  }
+
+  void forget(final Path path) {
+    String key = key(path);
+    entries.remove(key);
+    appendToJournal(ConversionOutcome.FAILED + SEPARATOR + NO_HASH + SEPARATOR + key);
+  }
+
+  private synchronized void appendToJournal(final String line) {
+    if (indexFile == null) {
+      return;
+    }
+    try {
+      if (journal == null) {
+        Files.createDirectories(indexFile.getParent());
+        Path journalFile = journalFile(indexFile);
+        boolean isNew = !Files.isRegularFile(journalFile) || Files.size(journalFile) == 0;
+        journal = Files.newBufferedWriter(journalFile, UTF_8, CREATE, APPEND);
+        if (isNew) {
+          journal.write(RULES_HEADER + rulesFingerprint);
+          journal.newLine();
+        }
+      }
+      journal.write(line);
+      journal.newLine();
+      journal.flush();
+    } catch (IOException e) {
+      LOGGER.warn("Cannot write conversion journal", e);
+    }
+  }
+
+  synchronized void save() {
+    if (indexFile == null) {
+      return;
+    }
+    try {
+      if (journal != null) {
+        journal.close();
+        journal = null;
+      }
+      Files.createDirectories(indexFile.getParent());
+      Path tempFile = Files.createTempFile(indexFile.getParent(), indexFile.getFileName().toString(), ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(tempFile, UTF_8)) {
+        writer.write(RULES_HEADER + rulesFingerprint);
+        writer.newLine();
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+          writer.write(entry.getValue().outcome + SEPARATOR + entry.getValue().hash + SEPARATOR + entry.getKey());
+          writer.newLine();
+        }
+      }
+      Files.move(tempFile, indexFile, REPLACE_EXISTING, ATOMIC_MOVE);
+      // everything journaled so far is part of the index now
+      Files.deleteIfExists(journalFile(indexFile));
+    } catch (IOException e) {
+      LOGGER.error("Cannot write conversion index", e);
+    }
+  }
+
+  private static Path journalFile(final Path indexFile) {
+    return indexFile.resolveSibling(indexFile.getFileName() + JOURNAL_SUFFIX);
+  }
+
+  private static String key(final Path path) {
+    return path.toAbsolutePath().normalize().toString();
+  }
+
+  private static final class Entry {
+
+    private final ConversionOutcome outcome;
+    private final String hash;
+
+    private Entry(final ConversionOutcome outcome, final String hash) {
+      this.outcome = outcome;
+      this.hash = hash;
+    }
+  }
+}
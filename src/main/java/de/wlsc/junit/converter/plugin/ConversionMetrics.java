@@ -0,0 +1,209 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.wlsc.junit.converter.plugin.visitor.Rewrite;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe statistics of a single conversion run: time spent per phase, per-file latency histogram, outcomes,
+ * fired rewrites and the slowest files. Can be rendered as text for the summary dialog or as a JSON report.
+ */
+final class ConversionMetrics {
+
+  enum Phase {
+    DISCOVER,
+    READ,
+    PARSE,
+    VISIT,
+    PRINT,
+    WRITE,
+    REFRESH,
+    REFORMAT
+  }
+
+  private static final long[] LATENCY_BUCKETS_MILLIS = {1, 5, 10, 50, 100, 500, 1000, 5000};
+  private static final int SLOWEST_FILES = 10;
+
+  private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+  private final Map<ConversionOutcome, LongAdder> outcomes = new EnumMap<>(ConversionOutcome.class);
+  private final Map<Rewrite, LongAdder> rewrites = new EnumMap<>(Rewrite.class);
+  // the last bucket counts every file slower than the largest bound
+  private final AtomicLongArray latencyHistogram = new AtomicLongArray(LATENCY_BUCKETS_MILLIS.length + 1);
+  private final PriorityQueue<FileLatency> slowestFiles = new PriorityQueue<>(
+      Comparator.comparingLong(latency -> latency.nanos));
+  private final long startNanos = System.nanoTime();
+
+  ConversionMetrics() {
+    for (Phase phase : Phase.values()) {
+      phaseNanos.put(phase, new LongAdder());
+    }
+    for (ConversionOutcome outcome : ConversionOutcome.values()) {
+      outcomes.put(outcome, new LongAdder());
+    }
+    for (Rewrite rewrite : Rewrite.values()) {
+      rewrites.put(rewrite, new LongAdder());
+    }
+  }
+
+  long start() {
+    return System.nanoTime();
+  }
+
+  void stop(final Phase phase, final long startNanos) {
+    phaseNanos.get(phase).add(System.nanoTime() - startNanos);
+  }
+
+  void add(final Phase phase, final long nanos) {
+    phaseNanos.get(phase).add(nanos);
+  }
+
+  long getPhaseNanos(final Phase phase) {
+    return phaseNanos.get(phase).sum();
+  }
+
+  void fileConverted(final Path path, final ConversionOutcome outcome, final long nanos) {
+    outcomes.get(outcome).increment();
+
+    long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+    int bucket = 0;
+    while (bucket < LATENCY_BUCKETS_MILLIS.length && millis >= LATENCY_BUCKETS_MILLIS[bucket]) {
+      bucket++;
+    }
+    latencyHistogram.incrementAndGet(bucket);
+
+    synchronized (slowestFiles) {
+      if (slowestFiles.size() < SLOWEST_FILES) {
+        slowestFiles.add(new FileLatency(path, nanos));
+      } else if (slowestFiles.peek().nanos < nanos) {
+        slowestFiles.poll();
+        slowestFiles.add(new FileLatency(path, nanos));
+      }
+    }
+  }
+
+  void rewritesFired(final Map<Rewrite, Integer> fired) {
+    fired.forEach((rewrite, count) -> rewrites.get(rewrite).add(count));
+  }
+
+  long getRewriteCount(final Rewrite rewrite) {
+    return rewrites.get(rewrite).sum();
+  }
+
+  long getOutcomeCount(final ConversionOutcome outcome) {
+    return outcomes.get(outcome).sum();
+  }
+
+  String summary() {
+    StringBuilder summary = new StringBuilder();
+    summary.append(String.format("Total time: %d ms%n", totalMillis()));
+    outcomes.forEach((outcome, count) -> summary.append(String.format("%s: %d files%n", name(outcome), count.sum())));
+    summary.append(String.format("%nTime per phase:%n"));
+    phaseNanos.forEach((phase, nanos) -> summary.append(
+        String.format("  %s: %d ms%n", name(phase), TimeUnit.NANOSECONDS.toMillis(nanos.sum()))));
+    List<FileLatency> slowest = slowestFiles();
+    if (!slowest.isEmpty()) {
+      summary.append(String.format("%nSlowest files:%n"));
+      slowest.stream()
+          .limit(5)
+          .forEach(latency -> summary.append(String.format("  %d ms  %s%n",
+              TimeUnit.NANOSECONDS.toMillis(latency.nanos), latency.path.getFileName())));
+    }
+    return summary.toString();
+  }
+
+  void writeReport(final Path reportFile) throws IOException {
+    Files.createDirectories(reportFile.toAbsolutePath().getParent());
+    try (Writer writer = Files.newBufferedWriter(reportFile, UTF_8)) {
+      writer.write("{\n");
+      writer.write("  \"totalMillis\": " + totalMillis() + ",\n");
+      writer.write("  \"phaseMillis\": {");
+      writeEntries(writer, phaseNanos, nanos -> TimeUnit.NANOSECONDS.toMillis(nanos.sum()));
+      writer.write("},\n  \"outcomes\": {");
+      writeEntries(writer, outcomes, LongAdder::sum);
+      writer.write("},\n  \"rewrites\": {");
+      writeEntries(writer, rewrites, LongAdder::sum);
+      writer.write("},\n  \"latencyHistogramMillis\": {");
+      for (int bucket = 0; bucket < latencyHistogram.length(); bucket++) {
+        String bound = bucket < LATENCY_BUCKETS_MILLIS.length
+            ? "<" + LATENCY_BUCKETS_MILLIS[bucket]
+            : ">=" + LATENCY_BUCKETS_MILLIS[LATENCY_BUCKETS_MILLIS.length - 1];
+        writer.write((bucket == 0 ? "" : ", ") + quote(bound) + ": " + latencyHistogram.get(bucket));
+      }
+      writer.write("},\n  \"slowestFiles\": [");
+      List<FileLatency> slowest = slowestFiles();
+      for (int i = 0; i < slowest.size(); i++) {
+        FileLatency latency = slowest.get(i);
+        writer.write((i == 0 ? "\n" : ",\n") + "    {\"path\": " + quote(latency.path.toString())
+            + ", \"millis\": " + TimeUnit.NANOSECONDS.toMillis(latency.nanos) + "}");
+      }
+      writer.write(slowest.isEmpty() ? "]\n" : "\n  ]\n");
+      writer.write("}\n");
+    }
+  }
+
+  private long totalMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  private List<FileLatency> slowestFiles() {
+    List<FileLatency> slowest;
+    synchronized (slowestFiles) {
+      slowest = new ArrayList<>(slowestFiles);
+    }
+    slowest.sort(Comparator.comparingLong((FileLatency latency) -> latency.nanos).reversed());
+    return slowest;
+  }
+
+  private static <K extends Enum<K>, V> void writeEntries(final Writer writer, final Map<K, V> entries,
+      final ToLongFunction<V> value) throws IOException {
+    boolean first = true;
+    for (Map.Entry<K, V> entry : entries.entrySet()) {
+      writer.write((first ? "" : ", ") + quote(entry.getKey().name()) + ": " + value.applyAsLong(entry.getValue()));
+      first = false;
+    }
+  }
+
+  private static String name(final Enum<?> value) {
+    String name = value.name().replace('_', ' ').toLowerCase();
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private static String quote(final String value) {
+    StringBuilder quoted = new StringBuilder("\"");
+    for (char character : value.toCharArray()) {
+      if (character == '"' || character == '\\') {
+        quoted.append('\\').append(character);
+      } else if (character < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) character));
+      } else {
+        quoted.append(character);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  private static final class FileLatency {
+
+    private final Path path;
+    private final long nanos;
+
+    private FileLatency(final Path path, final long nanos) {
+      this.path = path;
+      this.nanos = nanos;
+    }
+  }
+}
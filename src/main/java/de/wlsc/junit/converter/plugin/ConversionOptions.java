@@ -0,0 +1,84 @@
+package de.wlsc.junit.converter.plugin;
+
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import de.wlsc.junit.converter.plugin.visitor.TypeResolution;
+import org.jetbrains.annotations.Nullable;
+
+final class ConversionOptions {
+
+  static final String RULES_FILE_NAME = ".junit5-converter.properties";
+
+  private static final ConversionOptions DEFAULTS = new ConversionOptions(OutputMode.LEXICAL_PRESERVING,
+      RewriteRules.defaults(), null, true, Runtime.getRuntime().availableProcessors());
+
+  private final OutputMode outputMode;
+  private final RewriteRules rewriteRules;
+  private final JUnit4Prefilter prefilter;
+  private final TypeResolution typeResolution;
+  private final boolean lazyMethodBodies;
+  private final int parallelism;
+
+  private ConversionOptions(final OutputMode outputMode, final RewriteRules rewriteRules,
+      @Nullable final TypeResolution typeResolution, final boolean lazyMethodBodies, final int parallelism) {
+    this.outputMode = outputMode;
+    this.rewriteRules = rewriteRules;
+    this.prefilter = JUnit4Prefilter.forRules(rewriteRules);
+    this.typeResolution = typeResolution;
+    this.lazyMethodBodies = lazyMethodBodies;
+    this.parallelism = parallelism;
+  }
+
+  static ConversionOptions defaults() {
+    return DEFAULTS;
+  }
+
+  ConversionOptions withOutputMode(final OutputMode outputMode) {
+    return new ConversionOptions(outputMode, rewriteRules, typeResolution, lazyMethodBodies, parallelism);
+  }
+
+  ConversionOptions withRewriteRules(final RewriteRules rewriteRules) {
+    return new ConversionOptions(outputMode, rewriteRules, typeResolution, lazyMethodBodies, parallelism);
+  }
+
+  // without type resolution annotations and assertions are recognized by their simple names only
+  ConversionOptions withTypeResolution(@Nullable final TypeResolution typeResolution) {
+    return new ConversionOptions(outputMode, rewriteRules, typeResolution, lazyMethodBodies, parallelism);
+  }
+
+  // helper method bodies are only parsed if they may contain something to rewrite, lexical output only
+  ConversionOptions withLazyMethodBodies(final boolean lazyMethodBodies) {
+    return new ConversionOptions(outputMode, rewriteRules, typeResolution, lazyMethodBodies, parallelism);
+  }
+
+  ConversionOptions withParallelism(final int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1, but was " + parallelism);
+    }
+    return new ConversionOptions(outputMode, rewriteRules, typeResolution, lazyMethodBodies, parallelism);
+  }
+
+  OutputMode getOutputMode() {
+    return outputMode;
+  }
+
+  RewriteRules getRewriteRules() {
+    return rewriteRules;
+  }
+
+  JUnit4Prefilter getPrefilter() {
+    return prefilter;
+  }
+
+  @Nullable
+  TypeResolution getTypeResolution() {
+    return typeResolution;
+  }
+
+  boolean isLazyMethodBodies() {
+    return lazyMethodBodies;
+  }
+
+  int getParallelism() {
+    return parallelism;
+  }
+}
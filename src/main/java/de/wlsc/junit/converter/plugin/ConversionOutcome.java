@@ -0,0 +1,8 @@
+package de.wlsc.junit.converter.plugin;
+
+enum ConversionOutcome {
+  CONVERTED,
+  UNCHANGED,
+  SKIPPED,
+  FAILED
+}
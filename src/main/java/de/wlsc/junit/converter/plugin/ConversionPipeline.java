@@ -0,0 +1,236 @@
+package de.wlsc.junit.converter.plugin;
+
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a conversion as a staged pipeline: one thread discovers files, a fixed number of workers parse and transform
+ * them, and the calling thread writes the converted items in batches. The stages are connected by bounded queues,
+ * so a slow stage blocks the ones in front of it and memory stays flat however many files are selected.
+ *
+ * @param <T> converted items the workers {@link #emit(Object) emit} for the write stage
+ */
+final class ConversionPipeline<T> {
+
+  interface Discovery {
+
+    void find(Consumer<Path> sink) throws IOException;
+  }
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionPipeline.class);
+  // tells a worker that discovery is over, compared by identity
+  private static final Path END_OF_FILES = Paths.get("");
+  // tells the write stage that the last worker stopped, every item was emitted before
+  private static final Object END_OF_ITEMS = new Object();
+
+  private final int parallelism;
+  private final int batchSize;
+  private final ConversionMetrics metrics;
+  private final ConversionProgress progress;
+  private final BlockingQueue<Path> discovered;
+  private final BlockingQueue<Object> converted;
+  private final ThrottlingSemaphore workerPermits;
+  private final AtomicBoolean lowMemory = new AtomicBoolean();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  ConversionPipeline(final int parallelism, final int batchSize, final ConversionMetrics metrics,
+      final ConversionProgress progress) {
+    this.parallelism = parallelism;
+    this.batchSize = batchSize;
+    this.metrics = metrics;
+    this.progress = progress;
+    this.discovered = new ArrayBlockingQueue<>(parallelism * batchSize);
+    // two batches: one being written, one being filled
+    this.converted = new ArrayBlockingQueue<>(2 * batchSize);
+    this.workerPermits = new ThrottlingSemaphore(parallelism);
+  }
+
+  void run(final Discovery discovery, final Function<Path, ConversionResult> conversion,
+      final Consumer<List<T>> writer) throws IOException {
+
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism + 1);
+    AtomicInteger runningWorkers = new AtomicInteger(parallelism);
+    try {
+      executor.execute(() -> discover(discovery));
+      for (int i = 0; i < parallelism; i++) {
+        executor.execute(() -> {
+          try {
+            convert(conversion);
+          } finally {
+            if (runningWorkers.decrementAndGet() == 0) {
+              endItems(executor);
+            }
+          }
+        });
+      }
+      write(writer);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Throwable error = failure.get();
+    if (error instanceof UncheckedIOException) {
+      throw ((UncheckedIOException) error).getCause();
+    }
+    if (error instanceof RuntimeException) {
+      throw (RuntimeException) error;
+    }
+    if (error != null) {
+      throw new IllegalStateException("Conversion pipeline failed", error);
+    }
+  }
+
+  // blocks the calling worker while the write stage is behind
+  void emit(final T item) {
+    try {
+      converted.put(item);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Conversion was interrupted");
+    }
+  }
+
+  // once memory runs low the rest of the run converts a single file at a time
+  void onLowMemory() {
+    if (parallelism > 1 && lowMemory.compareAndSet(false, true)) {
+      LOGGER.warn("Memory is low, converting the remaining files on a single thread");
+      workerPermits.throttle(parallelism - 1);
+    }
+  }
+
+  private void discover(final Discovery discovery) {
+    long start = metrics.start();
+    long[] blockedNanos = new long[1];
+    try {
+      discovery.find(path -> {
+        if (progress.isCanceled() || failure.get() != null) {
+          throw new CancellationException();
+        }
+        progress.fileDiscovered(path);
+        long putStart = System.nanoTime();
+        if (!put(discovered, path)) {
+          throw new CancellationException();
+        }
+        blockedNanos[0] += System.nanoTime() - putStart;
+      });
+    } catch (CancellationException e) {
+      // workers are stopped below
+    } catch (IOException e) {
+      failure.compareAndSet(null, new UncheckedIOException(e));
+    } catch (RuntimeException | Error e) {
+      failure.compareAndSet(null, e);
+    } finally {
+      // time spent waiting for the workers is not discovery time
+      metrics.stop(Phase.DISCOVER, start + blockedNanos[0]);
+      for (int i = 0; i < parallelism && put(discovered, END_OF_FILES); i++) {
+        // one end marker per worker
+      }
+    }
+  }
+
+  private void convert(final Function<Path, ConversionResult> conversion) {
+    try {
+      Path path;
+      while ((path = discovered.take()) != END_OF_FILES) {
+        if (progress.isCanceled() || failure.get() != null) {
+          continue;
+        }
+        workerPermits.acquire();
+        try {
+          long start = metrics.start();
+          ConversionResult result = conversion.apply(path);
+          metrics.fileConverted(path, result.getOutcome(), System.nanoTime() - start);
+          progress.fileProcessed(result);
+        } finally {
+          workerPermits.release();
+        }
+      }
+    } catch (InterruptedException | CancellationException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException | Error e) {
+      failure.compareAndSet(null, e);
+    }
+  }
+
+  // the write stage waits for the end marker, also if the last worker stopped on an interrupt, unless it is gone
+  private void endItems(final ExecutorService executor) {
+    boolean interrupted = Thread.interrupted();
+    if (!executor.isShutdown()) {
+      put(converted, END_OF_ITEMS);
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(final Consumer<List<T>> writer) {
+    List<Object> batch = new ArrayList<>(batchSize);
+    try {
+      boolean ended = false;
+      while (!ended) {
+        batch.add(converted.take());
+        converted.drainTo(batch, batchSize - 1);
+        // nothing follows the end marker, so it can only be the last item drained
+        ended = batch.get(batch.size() - 1) == END_OF_ITEMS;
+        if (ended) {
+          batch.remove(batch.size() - 1);
+        }
+        if (!batch.isEmpty()) {
+          writer.accept(items(batch));
+        }
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, e);
+    } catch (RuntimeException | Error e) {
+      failure.compareAndSet(null, e);
+    }
+  }
+
+  // only items of type T and the end marker are ever queued
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> items(final List<Object> batch) {
+    return (List<T>) batch;
+  }
+
+  // returns false if the pipeline was shut down while waiting
+  private static <E> boolean put(final BlockingQueue<E> queue, final E element) {
+    try {
+      queue.put(element);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static final class ThrottlingSemaphore extends Semaphore {
+
+    private ThrottlingSemaphore(final int permits) {
+      super(permits);
+    }
+
+    private void throttle(final int permits) {
+      reducePermits(permits);
+    }
+  }
+}
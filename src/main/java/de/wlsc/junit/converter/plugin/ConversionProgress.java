@@ -0,0 +1,12 @@
+package de.wlsc.junit.converter.plugin;
+
+import java.nio.file.Path;
+
+interface ConversionProgress {
+
+  boolean isCanceled();
+
+  void fileDiscovered(Path path);
+
+  void fileProcessed(ConversionResult result);
+}
@@ -0,0 +1,54 @@
+package de.wlsc.junit.converter.plugin;
+
+import java.nio.file.Path;
+
+final class ConversionResult {
+
+  private final Path path;
+  private final ConversionOutcome outcome;
+  private final int[] changedLines;
+
+  private ConversionResult(final Path path, final ConversionOutcome outcome, final int[] changedLines) {
+    this.path = path;
+    this.outcome = outcome;
+    this.changedLines = changedLines;
+  }
+
+  static ConversionResult converted(final Path path, final String original, final String converted) {
+    return new ConversionResult(path, ConversionOutcome.CONVERTED, ChangedLines.between(original, converted));
+  }
+
+  // the changed lines were found elsewhere, e.g. by a worker process, none if they are unknown
+  static ConversionResult converted(final Path path, final int[] changedLines) {
+    return new ConversionResult(path, ConversionOutcome.CONVERTED, changedLines);
+  }
+
+  static ConversionResult unchanged(final Path path) {
+    return new ConversionResult(path, ConversionOutcome.UNCHANGED, ChangedLines.NONE);
+  }
+
+  static ConversionResult skipped(final Path path) {
+    return new ConversionResult(path, ConversionOutcome.SKIPPED, ChangedLines.NONE);
+  }
+
+  static ConversionResult failed(final Path path) {
+    return new ConversionResult(path, ConversionOutcome.FAILED, ChangedLines.NONE);
+  }
+
+  Path getPath() {
+    return path;
+  }
+
+  ConversionOutcome getOutcome() {
+    return outcome;
+  }
+
+  boolean isConverted() {
+    return outcome == ConversionOutcome.CONVERTED;
+  }
+
+  // the first and last line of every changed hunk, see ChangedLines
+  int[] getChangedLines() {
+    return changedLines;
+  }
+}
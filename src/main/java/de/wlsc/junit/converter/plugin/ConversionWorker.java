@@ -0,0 +1,167 @@
+package de.wlsc.junit.converter.plugin;
+
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
+import de.wlsc.junit.converter.plugin.visitor.Rewrite;
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import de.wlsc.junit.converter.plugin.visitor.TypeResolution;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts files on disk for a {@link ConversionWorkerPool} in a JVM of its own. The pool talks to it over its
+ * standard streams in {@link DataOutputStream} format: first the options, i.e. output mode, lazy method bodies, rules
+ * file and the libraries for type resolution if any, answered by true once the worker is warmed up, or by false and
+ * an error. Then one path per file, answered by the outcome, the changed lines, the content hash, the nanoseconds per
+ * phase and the number of every fired rewrite. The worker exits once its input is closed, e.g. by the IDE exiting.
+ */
+final class ConversionWorker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionWorker.class);
+  private static final int WARM_UP_ITERATIONS = 20;
+
+  private ConversionWorker() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    // standard output is the channel to the pool, nothing else may be printed to it
+    System.setOut(System.err);
+
+    ConversionOptions options;
+    try {
+      options = readOptions(in);
+      // a cold worker's first file would run into the timeout
+      WarmUpSample.convert(options, WARM_UP_ITERATIONS);
+    } catch (IOException | RuntimeException e) {
+      out.writeBoolean(false);
+      out.writeUTF(String.valueOf(e.getMessage()));
+      out.flush();
+      return;
+    }
+    out.writeBoolean(true);
+    out.flush();
+
+    while (true) {
+      Path path;
+      try {
+        path = Paths.get(in.readUTF());
+      } catch (EOFException e) {
+        return;
+      }
+      convert(path, options, out);
+      out.flush();
+    }
+  }
+
+  // without libraries the worker recognizes annotations and assertions by their simple names only
+  static void writeOptions(final DataOutputStream out, final ConversionOptions options, final Path rulesFile,
+      @Nullable final List<Path> libraries) throws IOException {
+    out.writeUTF(options.getOutputMode().name());
+    out.writeBoolean(options.isLazyMethodBodies());
+    out.writeUTF(rulesFile.toString());
+    out.writeBoolean(libraries != null);
+    if (libraries != null) {
+      out.writeInt(libraries.size());
+      for (Path library : libraries) {
+        out.writeUTF(library.toString());
+      }
+    }
+  }
+
+  // records the worker's outcome in the pool's index and metrics
+  static ConversionResult readResult(final DataInputStream in, final Path path, final ConversionIndex index,
+      final ConversionMetrics metrics) throws IOException {
+    ConversionOutcome outcome = ConversionOutcome.valueOf(in.readUTF());
+    int[] changedLines = new int[in.readInt()];
+    for (int i = 0; i < changedLines.length; i++) {
+      changedLines[i] = in.readInt();
+    }
+    String hash = in.readUTF();
+    for (Phase phase : Phase.values()) {
+      metrics.add(phase, in.readLong());
+    }
+    Map<Rewrite, Integer> fired = new EnumMap<>(Rewrite.class);
+    for (Rewrite rewrite : Rewrite.values()) {
+      fired.put(rewrite, in.readInt());
+    }
+    metrics.rewritesFired(fired);
+
+    switch (outcome) {
+      case CONVERTED:
+        index.record(path, hash, outcome);
+        return ConversionResult.converted(path, changedLines);
+      case UNCHANGED:
+        index.record(path, hash, outcome);
+        return ConversionResult.unchanged(path);
+      default:
+        index.forget(path);
+        return ConversionResult.failed(path);
+    }
+  }
+
+  private static ConversionOptions readOptions(final DataInputStream in) throws IOException {
+    OutputMode outputMode = OutputMode.valueOf(in.readUTF());
+    boolean lazyMethodBodies = in.readBoolean();
+    Path rulesFile = Paths.get(in.readUTF());
+    TypeResolution typeResolution = null;
+    if (in.readBoolean()) {
+      int libraryCount = in.readInt();
+      List<Path> libraries = new ArrayList<>(libraryCount);
+      for (int i = 0; i < libraryCount; i++) {
+        libraries.add(Paths.get(in.readUTF()));
+      }
+      typeResolution = TypeResolution.create(libraries);
+      // within the startup timeout rather than the first file's
+      typeResolution.load();
+    }
+    return ConversionOptions.defaults()
+        .withOutputMode(outputMode)
+        .withLazyMethodBodies(lazyMethodBodies)
+        .withRewriteRules(RewriteRules.load(rulesFile))
+        .withTypeResolution(typeResolution);
+  }
+
+  // the pool keeps the real index, a fresh one only tells the hash of the written file
+  private static void convert(final Path path, final ConversionOptions options, final DataOutputStream out)
+      throws IOException {
+    ConversionIndex index = ConversionIndex.inMemory();
+    ConversionMetrics metrics = new ConversionMetrics();
+    ConversionResult result;
+    try {
+      result = JUnit5Converter.INSTANCE.convertToJunit5(path, options, index, metrics);
+    } catch (RuntimeException e) {
+      LOGGER.error("Cannot convert file " + path, e);
+      result = ConversionResult.failed(path);
+    }
+    String hash = index.hashOf(path);
+    out.writeUTF(result.getOutcome().name());
+    out.writeInt(result.getChangedLines().length);
+    for (int line : result.getChangedLines()) {
+      out.writeInt(line);
+    }
+    out.writeUTF(hash == null ? "" : hash);
+    for (Phase phase : Phase.values()) {
+      out.writeLong(metrics.getPhaseNanos(phase));
+    }
+    for (Rewrite rewrite : Rewrite.values()) {
+      out.writeInt((int) metrics.getRewriteCount(rewrite));
+    }
+  }
+}
@@ -0,0 +1,267 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts files on disk in local worker JVMs instead of the calling one, see {@link WorkerSettings}. Workers are
+ * started on demand up to the configured number and convert one file at a time until the pool is closed. A worker
+ * taking longer than the timeout for a file is stopped and the file fails, the next file gets a new worker; a
+ * crashed worker is replaced the same way. A worker the timeout fired on is never used again, even if its reply was
+ * read in time, and a file it already replaced counts as converted. The pool's index and metrics are kept up to date
+ * as if the files had been converted in-process.
+ */
+final class ConversionWorkerPool implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConversionWorkerPool.class);
+  private static final long EXIT_WAIT_MILLIS = 1000;
+  // reading the libraries for type resolution takes a while, a worker hanging before it is ready must not hang a run
+  private static final long STARTUP_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+  private final long timeoutMillis;
+  private final List<String> command;
+  // the options message, the same for every worker
+  private final byte[] options;
+  @Nullable
+  private final Path errorLog;
+  private final Semaphore permits;
+  private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+  private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "junit5-converter-worker-watchdog");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * @param libraries the libraries for type resolution, or null to recognize names only
+   * @param classpath the converter's classes and libraries the workers are started with
+   * @param errorLog  file the workers' error output is appended to, or null to discard it
+   */
+  ConversionWorkerPool(final WorkerSettings settings, final ConversionOptions options, final Path rulesFile,
+      @Nullable final List<Path> libraries, final List<Path> classpath, @Nullable final Path errorLog)
+      throws IOException {
+    this(settings, options, rulesFile, libraries, classpath, errorLog, ConversionWorker.class.getName());
+  }
+
+  // workerClass speaks the protocol of ConversionWorker, e.g. a stand-in for tests
+  ConversionWorkerPool(final WorkerSettings settings, final ConversionOptions options, final Path rulesFile,
+      @Nullable final List<Path> libraries, final List<Path> classpath, @Nullable final Path errorLog,
+      final String workerClass) throws IOException {
+    this.timeoutMillis = settings.getTimeoutMillis();
+    // one file at a time needs neither a parallel collector nor a large heap
+    this.command = Arrays.asList(Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+        "-Xmx" + settings.getHeap(), "-XX:+UseSerialGC",
+        "-cp", classpath.stream().map(Path::toString).collect(joining(File.pathSeparator)),
+        workerClass);
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(message)) {
+      ConversionWorker.writeOptions(out, options, rulesFile, libraries);
+    }
+    this.options = message.toByteArray();
+    this.errorLog = errorLog;
+    this.permits = new Semaphore(settings.getProcesses());
+    if (errorLog != null) {
+      Files.createDirectories(errorLog.getParent());
+    }
+  }
+
+  // screened files only, the worker converts whatever it is given; hash is the one of the screened content
+  ConversionResult convert(final Path path, final String hash, final ConversionIndex index,
+      final ConversionMetrics metrics) {
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while waiting for a worker");
+    }
+    try {
+      Worker worker = idleWorkers.poll();
+      if (worker == null) {
+        worker = startWorker();
+      }
+      try {
+        return convert(worker, path, hash, index, metrics);
+      } finally {
+        if (worker.reusable && worker.process.isAlive()) {
+          idleWorkers.add(worker);
+        } else {
+          workers.remove(worker);
+        }
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  private ConversionResult convert(final Worker worker, final Path path, final String hash,
+      final ConversionIndex index, final ConversionMetrics metrics) {
+    AtomicBoolean timedOut = new AtomicBoolean();
+    ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+      timedOut.set(true);
+      worker.process.destroyForcibly();
+    }, timeoutMillis, TimeUnit.MILLISECONDS);
+    boolean replied = false;
+    try {
+      worker.out.writeUTF(path.toString());
+      worker.out.flush();
+      ConversionResult result = ConversionWorker.readResult(worker.in, path, index, metrics);
+      replied = true;
+      return result;
+    } catch (IOException e) {
+      if (timedOut.get()) {
+        LOGGER.warn("Converting {} took longer than {} ms, its worker was stopped", path, timeoutMillis);
+      } else {
+        LOGGER.warn("Worker stopped while converting " + path, e);
+      }
+      worker.retire();
+      return failed(path, hash, index);
+    } finally {
+      // a timeout which could not be canceled any more has fired or is firing, the worker is stopped regardless
+      if (!timeout.cancel(false) || !replied) {
+        worker.retire();
+      }
+    }
+  }
+
+  // a worker stopped right after it replaced the file must not get it converted a second time
+  private static ConversionResult failed(final Path path, final String hash, final ConversionIndex index) {
+    deleteTemporaryFiles(path);
+    try {
+      String written = ConversionIndex.hash(Files.readAllBytes(path));
+      if (!written.equals(hash)) {
+        LOGGER.warn("{} was converted before its worker was stopped", path);
+        index.record(path, written, ConversionOutcome.CONVERTED);
+        return ConversionResult.converted(path, ChangedLines.NONE);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read " + path, e);
+    }
+    index.forget(path);
+    return ConversionResult.failed(path);
+  }
+
+  // a worker fails to start for all files alike, e.g. because of invalid rules, so the whole run fails
+  private Worker startWorker() {
+    Process process;
+    try {
+      process = new ProcessBuilder(command)
+          .redirectError(errorLog == null ? Redirect.DISCARD : Redirect.appendTo(errorLog.toFile()))
+          .start();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot start conversion worker", e);
+    }
+    Worker worker = new Worker(process);
+    workers.add(worker);
+    ScheduledFuture<?> timeout = watchdog.schedule(process::destroyForcibly, STARTUP_TIMEOUT_MILLIS,
+        TimeUnit.MILLISECONDS);
+    try {
+      worker.out.write(options);
+      worker.out.flush();
+      if (!worker.in.readBoolean()) {
+        throw new IOException(worker.in.readUTF());
+      }
+      return worker;
+    } catch (EOFException e) {
+      workers.remove(worker);
+      throw new UncheckedIOException("Conversion worker exited before it was ready"
+          + (errorLog == null ? "" : ", see " + errorLog), e);
+    } catch (IOException e) {
+      worker.process.destroyForcibly();
+      workers.remove(worker);
+      throw new UncheckedIOException("Cannot start conversion worker: " + e.getMessage(), e);
+    } finally {
+      timeout.cancel(false);
+    }
+  }
+
+  // a worker stopped while writing leaves the temporary file of SourceEncoding#write behind
+  private static void deleteTemporaryFiles(final Path path) {
+    Path directory = path.toAbsolutePath().getParent();
+    String prefix = "." + path.getFileName();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+        file -> file.getFileName().toString().startsWith(prefix) && file.toString().endsWith(".tmp"))) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Cannot delete temporary files of " + path, e);
+    }
+  }
+
+  // closing a worker's input lets it exit on its own
+  @Override
+  public void close() {
+    watchdog.shutdownNow();
+    for (Worker worker : workers) {
+      try {
+        worker.out.close();
+        if (!worker.process.waitFor(EXIT_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+          worker.process.destroyForcibly();
+        }
+      } catch (IOException e) {
+        worker.process.destroyForcibly();
+      } catch (InterruptedException e) {
+        worker.process.destroyForcibly();
+        Thread.currentThread().interrupt();
+      }
+    }
+    workers.clear();
+    idleWorkers.clear();
+  }
+
+  private static final class Worker {
+
+    private final Process process;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    // only ever read and written by the thread the worker is converting for
+    private boolean reusable = true;
+
+    private Worker(final Process process) {
+      this.process = process;
+      this.in = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+      this.out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+    }
+
+    // waits for the process to exit, so it cannot write the file any more once it was stopped
+    private void retire() {
+      reusable = false;
+      try {
+        process.destroyForcibly().waitFor(EXIT_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
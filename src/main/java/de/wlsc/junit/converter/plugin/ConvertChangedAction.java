@@ -0,0 +1,107 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vcs.ProjectLevelVcsManager;
+import com.intellij.openapi.vcs.VcsDataKeys;
+import com.intellij.openapi.vcs.changes.Change;
+import com.intellij.openapi.vcs.changes.ChangeListManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts only the test files with local changes, or the changes selected in the commit view, so that a team can
+ * migrate the tests it touches without rewriting the rest of the repository. A project may consist of several
+ * repositories, the changes of all of them are converted in one run. Without selected changes a base branch may be
+ * given, then everything changed on the branch since it forked from the base is converted as well.
+ */
+public class ConvertChangedAction extends AnAction {
+
+  private static final String BASE_REVISION_KEY = "junit5-converter.changed.base";
+  private static final String GIT = "Git";
+
+  @Override
+  public void actionPerformed(@NotNull final AnActionEvent actionEvent) {
+
+    Project project = Objects.requireNonNull(actionEvent.getProject(), "Project must be not null");
+    Change[] selectedChanges = actionEvent.getData(VcsDataKeys.CHANGES);
+    if (selectedChanges == null || selectedChanges.length == 0) {
+      String baseRevision = askForBaseRevision(project);
+      if (baseRevision == null) {
+        return;
+      }
+      if (!baseRevision.isEmpty()) {
+        convertChangesSince(project, baseRevision);
+        return;
+      }
+    }
+    Map<Path, List<Path>> changedFiles = changedFilesByRoot(actionEvent, project);
+    if (changedFiles.isEmpty()) {
+      Messages.showInfoMessage(project, "There are no changed files to convert", "Nothing to Convert");
+      return;
+    }
+
+    FileDocumentManager.getInstance().saveAllDocuments();
+    ProgressManager.getInstance().run(ConvertTask.forChangedFiles(project, changedFiles));
+  }
+
+  // null if canceled, empty for local changes only
+  @Nullable
+  private static String askForBaseRevision(final Project project) {
+    PropertiesComponent properties = PropertiesComponent.getInstance(project);
+    String baseRevision = Messages.showInputDialog(project,
+        "Base branch to convert the changes since, empty for local changes only:", "Convert Changed Tests",
+        null, properties.getValue(BASE_REVISION_KEY, ""), null);
+    if (baseRevision == null) {
+      return null;
+    }
+    properties.setValue(BASE_REVISION_KEY, baseRevision.strip(), "");
+    return baseRevision.strip();
+  }
+
+  private static void convertChangesSince(final Project project, final String baseRevision) {
+    List<Path> roots = Arrays.stream(ProjectLevelVcsManager.getInstance(project).getAllVcsRoots())
+        .filter(root -> root.getVcs() != null && GIT.equals(root.getVcs().getName()))
+        .map(root -> Paths.get(root.getPath().getPath()))
+        .collect(toList());
+    if (roots.isEmpty()) {
+      Messages.showInfoMessage(project, "There is no git repository to compare with " + baseRevision,
+          "Nothing to Convert");
+      return;
+    }
+    FileDocumentManager.getInstance().saveAllDocuments();
+    ProgressManager.getInstance().run(ConvertTask.forChangesSince(project, roots, baseRevision));
+  }
+
+  // deleted files have no virtual file and are dropped, as are files outside of any repository
+  private static Map<Path, List<Path>> changedFilesByRoot(final AnActionEvent actionEvent, final Project project) {
+    Change[] selectedChanges = actionEvent.getData(VcsDataKeys.CHANGES);
+    Stream<VirtualFile> files = selectedChanges != null && selectedChanges.length > 0
+        ? Arrays.stream(selectedChanges).map(Change::getVirtualFile)
+        : ChangeListManager.getInstance(project).getAffectedFiles().stream();
+    ProjectLevelVcsManager vcsManager = ProjectLevelVcsManager.getInstance(project);
+    return files
+        .filter(Objects::nonNull)
+        .filter(file -> vcsManager.getVcsRootFor(file) != null)
+        .collect(groupingBy(file -> Paths.get(vcsManager.getVcsRootFor(file).getPath()), LinkedHashMap::new,
+            mapping(file -> Paths.get(file.getPath()), toList())));
+  }
+}
@@ -0,0 +1,124 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.github.javaparser.ParseProblemException;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts the file of a highlighted JUnit 4 construct with the rules of a batch conversion. The converter works on
+ * whole compilation units, so every construct of the file is converted at once. The file's document is changed in
+ * place, the fix can be undone like any other edit. Type resolution is used once it was built in the background,
+ * the fix never waits for the project's jars to be read.
+ * <p>
+ * The text is converted in the background without holding a lock, so editing is never blocked meanwhile. Only
+ * replacing the text and reformatting it happen in a write action on the EDT, and only if the document was not
+ * edited in between.
+ */
+class ConvertFileToJUnit5Fix implements LocalQuickFix {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConvertFileToJUnit5Fix.class);
+
+  @NotNull
+  @Override
+  public String getFamilyName() {
+    return "Convert file to JUnit 5";
+  }
+
+  @Override
+  public boolean startInWriteAction() {
+    return false;
+  }
+
+  @Override
+  public void applyFix(@NotNull final Project project, @NotNull final ProblemDescriptor descriptor) {
+    PsiFile file = descriptor.getPsiElement().getContainingFile();
+    VirtualFile virtualFile = Objects.isNull(file) ? null : file.getVirtualFile();
+    Document document = Objects.isNull(file) ? null : PsiDocumentManager.getInstance(project).getDocument(file);
+    if (Objects.isNull(virtualFile) || Objects.isNull(document)) {
+      return;
+    }
+    Path path = Paths.get(virtualFile.getPath());
+    long modificationStamp = document.getModificationStamp();
+    String source = document.getText();
+    ProgressManager.getInstance().run(new Task.Backgroundable(project, "Converting to JUnit 5", false) {
+      private DocumentEdit edit;
+
+      @Override
+      public void run(@NotNull final ProgressIndicator indicator) {
+        edit = convert(project, path, document, modificationStamp, source);
+      }
+
+      @Override
+      public void onSuccess() {
+        if (Objects.nonNull(edit)) {
+          apply(project, file, edit);
+        }
+      }
+    });
+  }
+
+  // null if the file is unchanged or cannot be converted
+  @Nullable
+  private static DocumentEdit convert(final Project project, final Path path, final Document document,
+      final long modificationStamp, final String source) {
+    ProjectConversionOptions projectOptions = ProjectConversionOptions.getInstance(project);
+    String converted;
+    try {
+      ConversionOptions options = ConversionOptions.defaults()
+          .withRewriteRules(projectOptions.getRewriteRules())
+          .withTypeResolution(projectOptions.getTypeResolutionIfReady());
+      // documents only ever contain \n, whatever the printer used
+      converted = StringUtil.convertLineSeparators(
+          JUnit5Converter.INSTANCE.convertSource(path, source, options, new ConversionMetrics()));
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read rewrite rules", e);
+      return null;
+    } catch (ParseProblemException e) {
+      LOGGER.warn("Cannot parse file " + path, e);
+      return null;
+    }
+    return converted.equals(source)
+        ? null
+        : DocumentEdit.inMemory(ConversionResult.converted(path, source, converted), document, modificationStamp,
+            converted);
+  }
+
+  private void apply(final Project project, final PsiFile file, final DocumentEdit edit) {
+    Document document = edit.getDocument();
+    // the project may have been closed or the file deleted or replaced while converting
+    if (project.isDisposed() || !file.isValid()
+        || PsiDocumentManager.getInstance(project).getDocument(file) != document) {
+      LOGGER.warn("Skipping " + edit.getResult().getPath() + ", it is gone since the conversion started");
+      return;
+    }
+    if (document.getModificationStamp() != edit.getModificationStamp()) {
+      LOGGER.warn("Skipping " + edit.getResult().getPath() + ", it was modified during the conversion");
+      return;
+    }
+    WriteCommandAction.writeCommandAction(project, file)
+        .withName(getFamilyName())
+        .run(() -> {
+          ConvertedDocumentsWriter.replaceChangedText(document, edit.getConvertedText());
+          PsiDocumentManager.getInstance(project).commitDocument(document);
+          ConvertedDocumentsWriter.reformatChangedLines(project, file, document, edit.getResult());
+        });
+  }
+}
@@ -0,0 +1,301 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.util.stream.Collectors.toList;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.LowMemoryWatcher;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+import javassist.ClassPool;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class ConvertTask extends Task.Backgroundable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConvertTask.class);
+  private static final int REFRESH_BATCH_SIZE = 500;
+
+  // null for a run which is not resumed
+  @Nullable
+  private final VirtualFile selectedFile;
+  private final BiFunction<DiscoveryFilter, RewriteRules, ConversionPipeline.Discovery> discovery;
+  private final AtomicInteger totalFiles = new AtomicInteger();
+  private final AtomicInteger processedFiles = new AtomicInteger();
+  private volatile List<DocumentEdit> diskEdits = Collections.emptyList();
+  private volatile ConversionIndex index;
+  private volatile ConvertedDocumentsWriter writer;
+  private volatile ConversionMetrics metrics;
+  private volatile boolean canceled;
+
+  ConvertTask(final Project project, final VirtualFile selectedFile) {
+    this(project, selectedFile,
+        (filter, rules) -> new IndexedTestFileDiscovery(project, selectedFile, filter, rules));
+  }
+
+  private ConvertTask(final Project project, @Nullable final VirtualFile selectedFile,
+      final BiFunction<DiscoveryFilter, RewriteRules, ConversionPipeline.Discovery> discovery) {
+    super(project, "Converting to JUnit 5", true);
+    this.selectedFile = selectedFile;
+    this.discovery = discovery;
+  }
+
+  /**
+   * Converts only the test files among the changed ones, such a run is small and is not resumed. The files are
+   * grouped by the root of the repository they belong to, excluded directories are relative to it.
+   */
+  static ConvertTask forChangedFiles(final Project project, final Map<Path, ? extends Collection<Path>> changedFiles) {
+    return new ConvertTask(project, null, (filter, rules) -> sink -> {
+      for (Map.Entry<Path, ? extends Collection<Path>> root : changedFiles.entrySet()) {
+        ChangedFileDiscovery.of(root.getKey(), root.getValue(), filter).find(sink);
+      }
+    });
+  }
+
+  // git is asked in the background, for every repository on its own
+  static ConvertTask forChangesSince(final Project project, final Collection<Path> roots, final String baseRevision) {
+    return new ConvertTask(project, null, (filter, rules) -> sink -> {
+      for (Path root : roots) {
+        ChangedFileDiscovery.sinceRevision(root, baseRevision, filter).find(sink);
+      }
+    });
+  }
+
+  @Override
+  public void run(@NotNull final ProgressIndicator indicator) {
+    metrics = new ConversionMetrics();
+    indicator.setIndeterminate(false);
+    indicator.setText("Searching for test files");
+    ProjectConversionOptions projectOptions = ProjectConversionOptions.getInstance(myProject);
+    Path rulesFile = projectOptions.getRulesFile();
+    WorkerSettings workerSettings = loadWorkerSettings(rulesFile);
+    ConversionOptions options = ConversionOptions.defaults()
+        .withRewriteRules(loadRewriteRules(projectOptions, rulesFile))
+        .withTypeResolution(projectOptions.getTypeResolution());
+    // every worker process is waited for by a thread of its own
+    options = options.withParallelism(Math.max(options.getParallelism(), workerSettings.getProcesses()));
+    String rulesFingerprint = rulesFingerprint(rulesFile);
+    index = ConversionIndex.load(indexFile(), rulesFingerprint);
+    ConversionCheckpoint checkpoint = selectedFile != null
+        ? ConversionCheckpoint.of(checkpointFile(), Paths.get(selectedFile.getPath()), rulesFingerprint)
+        : null;
+    writer = new ConvertedDocumentsWriter(myProject, index, metrics);
+
+    ConversionPipeline<DocumentEdit> pipeline = new ConversionPipeline<>(options.getParallelism(),
+        ConvertedDocumentsWriter.BATCH_SIZE, metrics, new ConversionProgress() {
+          @Override
+          public boolean isCanceled() {
+            return indicator.isCanceled();
+          }
+
+          @Override
+          public void fileDiscovered(final Path path) {
+            totalFiles.incrementAndGet();
+          }
+
+          @Override
+          public void fileProcessed(final ConversionResult result) {
+            int processed = processedFiles.incrementAndGet();
+            int total = totalFiles.get();
+            indicator.setFraction((double) processed / total);
+            indicator.setText(String.format("Converted %d of %d files found so far", processed, total));
+            indicator.setText2(result.getPath().toString());
+          }
+        });
+    ConversionWorkerPool workers = workerSettings.isEnabled()
+        ? startWorkers(workerSettings, projectOptions, options, rulesFile)
+        : null;
+    DocumentConverter converter = new DocumentConverter(options, index, metrics, workers, pipeline::emit);
+    LowMemoryWatcher lowMemoryWatcher = LowMemoryWatcher.register(pipeline::onLowMemory);
+    ConversionPipeline.Discovery files = discovery.apply(loadDiscoveryFilter(rulesFile), options.getRewriteRules());
+    try {
+      pipeline.run(checkpoint == null ? files : checkpoint.discovery(files), converter::convert,
+          writer::writeAndWait);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read selected folder", e);
+    } finally {
+      lowMemoryWatcher.stop();
+      if (workers != null) {
+        workers.close();
+      }
+    }
+    diskEdits = converter.getDiskEdits();
+    index.save();
+    // a canceled run is resumed next time
+    indicator.checkCanceled();
+    if (checkpoint != null) {
+      checkpoint.complete();
+    }
+  }
+
+  @Override
+  public void onCancel() {
+    canceled = true;
+  }
+
+  @Override
+  public void onThrowable(@NotNull final Throwable error) {
+    LOGGER.error("Cannot apply JUnit 5 conversion", error);
+    Messages.showErrorDialog(myProject, error.getMessage(), "Conversion Failed");
+  }
+
+  @Override
+  public void onFinished() {
+    if (index == null) {
+      return;
+    }
+    long start = metrics.start();
+    refreshWrittenFiles(() -> {
+      metrics.stop(Phase.REFRESH, start);
+      writer.write(diskEdits, this::complete);
+    });
+  }
+
+  private void complete() {
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      index.save();
+      Path reportFile = reportFile();
+      try {
+        metrics.writeReport(reportFile);
+      } catch (IOException e) {
+        LOGGER.warn("Cannot write conversion report", e);
+      }
+      ApplicationManager.getApplication().invokeLater(() -> showSummary(reportFile), myProject.getDisposed());
+    });
+  }
+
+  private void showSummary(final Path reportFile) {
+    String summary = metrics.summary() + "\nReport: " + reportFile;
+    if (!diskEdits.isEmpty()) {
+      // only their reformatting is part of the undo group
+      summary += String.format("%n%n%d files without a loaded document were converted on disk, undo does not "
+          + "revert them, use version control instead", diskEdits.size());
+    }
+    if (canceled) {
+      Messages.showWarningDialog(myProject,
+          String.format("Conversion was canceled after %d of %d files%n%n%s", processedFiles.get(), totalFiles.get(),
+              summary),
+          "Conversion Canceled");
+      return;
+    }
+    Messages.showInfoMessage(myProject,
+        String.format("Selected folder/file was converted!%n%n%s", summary),
+        "Conversion Successful");
+  }
+
+  private Path reportFile() {
+    String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+    return Paths.get(PathManager.getLogPath(), "junit5-converter", "report-" + timestamp + ".json");
+  }
+
+  private static RewriteRules loadRewriteRules(final ProjectConversionOptions projectOptions, final Path rulesFile) {
+    try {
+      return projectOptions.getRewriteRules();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read rewrite rules from " + rulesFile, e);
+    }
+  }
+
+  private static WorkerSettings loadWorkerSettings(final Path rulesFile) {
+    try {
+      return WorkerSettings.load(rulesFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read worker settings from " + rulesFile, e);
+    }
+  }
+
+  // the processes themselves are started on demand
+  private static ConversionWorkerPool startWorkers(final WorkerSettings settings,
+      final ProjectConversionOptions projectOptions, final ConversionOptions options, final Path rulesFile) {
+    try {
+      List<Path> libraries = options.getTypeResolution() == null ? null : projectOptions.getLibraries();
+      return new ConversionWorkerPool(settings, options, rulesFile, libraries, workerClasspath(),
+          Paths.get(PathManager.getLogPath(), "junit5-converter", "worker.log"));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot create worker log", e);
+    }
+  }
+
+  // the plugin's classes and libraries, Guava, commons-lang and slf4j are provided by the IDE
+  private static List<Path> workerClasspath() {
+    return Stream.of(ConversionWorker.class, JavaParser.class, JarTypeSolver.class, ClassPool.class,
+        ImmutableMap.class, StringUtils.class, LoggerFactory.class)
+        .map(PathManager::getJarPathForClass)
+        .filter(Objects::nonNull)
+        .distinct()
+        .map(Paths::get)
+        .collect(toList());
+  }
+
+  private DiscoveryFilter loadDiscoveryFilter(final Path rulesFile) {
+    try {
+      return DiscoveryFilter.load(rulesFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read discovery settings from " + rulesFile, e);
+    }
+  }
+
+  private String rulesFingerprint(final Path rulesFile) {
+    try {
+      return ConversionIndex.rulesFingerprint(rulesFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read rewrite rules from " + rulesFile, e);
+    }
+  }
+
+  private Path indexFile() {
+    return Paths.get(PathManager.getSystemPath(), "junit5-converter", myProject.getLocationHash() + ".index");
+  }
+
+  private Path checkpointFile() {
+    return Paths.get(PathManager.getSystemPath(), "junit5-converter", myProject.getLocationHash() + ".checkpoint");
+  }
+
+  // only files without a document were written behind the IDE's back, nothing else has to be refreshed
+  private void refreshWrittenFiles(final Runnable whenDone) {
+    if (diskEdits.isEmpty()) {
+      whenDone.run();
+      return;
+    }
+    List<File> writtenFiles = diskEdits.stream()
+        .map(edit -> edit.getResult().getPath().toFile())
+        .collect(toList());
+    List<List<File>> batches = Lists.partition(writtenFiles, REFRESH_BATCH_SIZE);
+    AtomicInteger pendingBatches = new AtomicInteger(batches.size());
+    for (List<File> batch : batches) {
+      LocalFileSystem.getInstance().refreshIoFiles(batch, true, false, () -> {
+        if (pendingBatches.decrementAndGet() == 0) {
+          whenDone.run();
+        }
+      });
+    }
+  }
+}
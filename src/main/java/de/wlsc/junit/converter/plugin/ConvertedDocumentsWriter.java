@@ -0,0 +1,165 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.google.common.collect.Lists;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.TextRange;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.codeStyle.CodeStyleManager;
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Applies converted text to the documents, reformats the changed lines and saves the documents. All batches share
+ * one undo group, so a whole conversion run can be undone at once. Files converted on disk are only reformatted
+ * here, undo reverts their reformatting but not their conversion.
+ */
+class ConvertedDocumentsWriter {
+
+  static final int BATCH_SIZE = 100;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConvertedDocumentsWriter.class);
+
+  private final Project project;
+  private final ConversionIndex index;
+  private final ConversionMetrics metrics;
+  private final String undoGroupId = "junit5-conversion-" + UUID.randomUUID();
+
+  ConvertedDocumentsWriter(final Project project, final ConversionIndex index, final ConversionMetrics metrics) {
+    this.project = project;
+    this.index = index;
+    this.metrics = metrics;
+  }
+
+  // blocks the calling background thread until the batch is written, which throttles the conversion
+  void writeAndWait(final List<DocumentEdit> batch) {
+    ApplicationManager.getApplication().invokeAndWait(() -> {
+      if (!project.isDisposed()) {
+        writeBatch(batch);
+      }
+    }, ModalityState.defaultModalityState());
+  }
+
+  // whenDone runs on the EDT after the last batch was written
+  void write(final List<DocumentEdit> edits, final Runnable whenDone) {
+    // every batch is a separate write command, so the EDT is released in between
+    for (List<DocumentEdit> batch : Lists.partition(edits, BATCH_SIZE)) {
+      ApplicationManager.getApplication().invokeLater(() -> writeBatch(batch), project.getDisposed());
+    }
+    ApplicationManager.getApplication().invokeLater(whenDone, project.getDisposed());
+  }
+
+  private void writeBatch(final List<DocumentEdit> batch) {
+    PsiDocumentManager.getInstance(project).commitAllDocuments();
+    List<DocumentEdit> applied = new ArrayList<>();
+    WriteCommandAction.writeCommandAction(project)
+        .withName("Convert to JUnit 5")
+        .withGroupId(undoGroupId)
+        .run(() -> batch.stream().filter(this::apply).forEach(applied::add));
+    long start = metrics.start();
+    // the index must know the reformatted content, otherwise the next run converts these files again
+    applied.forEach(this::saveAndRecord);
+    metrics.stop(Phase.WRITE, start);
+  }
+
+  private boolean apply(final DocumentEdit edit) {
+    PsiFile file = findPsiFile(edit);
+    Document document = Objects.isNull(file) ? null : PsiDocumentManager.getInstance(project).getDocument(file);
+    if (Objects.isNull(document)) {
+      return false;
+    }
+    if (!edit.isOnDisk()) {
+      if (document.getModificationStamp() != edit.getModificationStamp()) {
+        LOGGER.warn("Skipping " + edit.getResult().getPath() + ", it was modified during the conversion");
+        index.forget(edit.getResult().getPath());
+        return false;
+      }
+      long start = metrics.start();
+      replaceChangedText(document, edit.getConvertedText());
+      PsiDocumentManager.getInstance(project).commitDocument(document);
+      metrics.stop(Phase.WRITE, start);
+    }
+    long start = metrics.start();
+    reformatChangedLines(project, file, document, edit.getResult());
+    metrics.stop(Phase.REFORMAT, start);
+    return true;
+  }
+
+  // replacing only the differing range keeps carets, folding and the undo record small
+  static void replaceChangedText(final Document document, final String convertedText) {
+    CharSequence text = document.getImmutableCharSequence();
+    int prefix = 0;
+    int maxPrefix = Math.min(text.length(), convertedText.length());
+    while (prefix < maxPrefix && text.charAt(prefix) == convertedText.charAt(prefix)) {
+      prefix++;
+    }
+    int suffix = 0;
+    int maxSuffix = maxPrefix - prefix;
+    while (suffix < maxSuffix
+        && text.charAt(text.length() - 1 - suffix) == convertedText.charAt(convertedText.length() - 1 - suffix)) {
+      suffix++;
+    }
+    document.replaceString(prefix, text.length() - suffix,
+        convertedText.substring(prefix, convertedText.length() - suffix));
+  }
+
+  static void reformatChangedLines(final Project project, final PsiFile file, final Document document,
+      final ConversionResult result) {
+    int[] changedLines = result.getChangedLines();
+    // the changed lines are unknown for a file a stopped worker had already written
+    if (document.getLineCount() == 0 || changedLines.length == 0) {
+      return;
+    }
+    int lastLine = document.getLineCount() - 1;
+    List<TextRange> changedRanges = new ArrayList<>(changedLines.length / 2);
+    for (int i = 0; i < changedLines.length; i += 2) {
+      changedRanges.add(new TextRange(document.getLineStartOffset(Math.min(changedLines[i], lastLine)),
+          document.getLineEndOffset(Math.min(changedLines[i + 1], lastLine))));
+    }
+
+    CodeStyleManager.getInstance(project).reformatText(file, changedRanges);
+  }
+
+  private void saveAndRecord(final DocumentEdit edit) {
+    PsiFile file = findPsiFile(edit);
+    if (Objects.isNull(file)) {
+      return;
+    }
+    Document document = PsiDocumentManager.getInstance(project).getDocument(file);
+    if (Objects.nonNull(document)) {
+      FileDocumentManager.getInstance().saveDocument(document);
+    }
+    try {
+      index.record(edit.getResult().getPath(), ConversionIndex.hash(Files.readAllBytes(edit.getResult().getPath())),
+          ConversionOutcome.CONVERTED);
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read converted file " + edit.getResult().getPath(), e);
+      index.forget(edit.getResult().getPath());
+    }
+  }
+
+  @Nullable
+  private PsiFile findPsiFile(final DocumentEdit edit) {
+    VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByIoFile(edit.getResult().getPath().toFile());
+    if (Objects.isNull(virtualFile) || !virtualFile.isValid()) {
+      return null;
+    }
+    return PsiManager.getInstance(project).findFile(virtualFile);
+  }
+}
@@ -0,0 +1,69 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.github.javaparser.ParseProblemException;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.StartupActivity;
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms the conversion engine up once a project with JUnit 4 on its classpath was opened, so that the first
+ * conversion does not pay for loading JavaParser and the visitor. Nothing runs during startup itself: the check for
+ * JUnit 4 waits for the indexes in a non-blocking read action, the warm-up runs on a pooled thread once per IDE.
+ */
+public final class ConverterWarmUp implements StartupActivity.Background {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConverterWarmUp.class);
+  private static final String JUNIT4_TEST = "org.junit.Test";
+  private static final int ITERATIONS = 20;
+  private static final AtomicBoolean WARMED_UP = new AtomicBoolean();
+
+  @Override
+  public void runActivity(@NotNull final Project project) {
+    if (ApplicationManager.getApplication().isUnitTestMode() || WARMED_UP.get()) {
+      return;
+    }
+    ReadAction.nonBlocking(() -> hasJUnit4(project))
+        .inSmartMode(project)
+        .expireWith(project)
+        .submit(AppExecutorUtil.getAppExecutorService())
+        .onSuccess(hasJUnit4 -> {
+          if (hasJUnit4 && WARMED_UP.compareAndSet(false, true)) {
+            ApplicationManager.getApplication().executeOnPooledThread(() -> warmUp(project));
+          }
+        });
+  }
+
+  private static boolean hasJUnit4(final Project project) {
+    return JavaPsiFacade.getInstance(project).findClass(JUNIT4_TEST, GlobalSearchScope.allScope(project)) != null;
+  }
+
+  private static void warmUp(final Project project) {
+    if (project.isDisposed()) {
+      WARMED_UP.set(false);
+      return;
+    }
+    long start = System.nanoTime();
+    try {
+      ConversionOptions options = ConversionOptions.defaults()
+          .withRewriteRules(ProjectConversionOptions.getInstance(project).getRewriteRules());
+      for (OutputMode outputMode : OutputMode.values()) {
+        WarmUpSample.convert(options.withOutputMode(outputMode), ITERATIONS);
+      }
+      LOGGER.debug("Converter warmed up in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read rewrite rules, converter not warmed up", e);
+    } catch (ParseProblemException e) {
+      LOGGER.warn("Cannot warm up converter", e);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which files are test files and which directories are never searched. Both can be overridden in
+ * {@value ConversionOptions#RULES_FILE_NAME} with comma separated values:
+ * <pre>
+ * discovery.include=*Test.java,*Tests.java,*IT.java,*Spec.java
+ * discovery.exclude=build,out,target,node_modules
+ * </pre>
+ */
+final class DiscoveryFilter {
+
+  static final String KEY_PREFIX = "discovery.";
+  private static final String INCLUDE_KEY = KEY_PREFIX + "include";
+  private static final String EXCLUDE_KEY = KEY_PREFIX + "exclude";
+
+  private static final List<String> DEFAULT_INCLUDES = ImmutableList.of("*Test.java", "*Tests.java", "*IT.java");
+  private static final Set<String> DEFAULT_EXCLUDES = ImmutableSet.of("build", "out", "target", "node_modules",
+      ".git", ".gradle", ".idea", "generated-sources", "generated-test-sources");
+
+  private static final DiscoveryFilter DEFAULTS = new DiscoveryFilter(DEFAULT_INCLUDES, DEFAULT_EXCLUDES);
+
+  private final List<Predicate<String>> includes;
+  private final Set<String> excludedDirectories;
+
+  private DiscoveryFilter(final List<String> includes, final Set<String> excludedDirectories) {
+    this.includes = includes.stream()
+        .map(DiscoveryFilter::compile)
+        .collect(ImmutableList.toImmutableList());
+    this.excludedDirectories = ImmutableSet.copyOf(excludedDirectories);
+  }
+
+  static DiscoveryFilter defaults() {
+    return DEFAULTS;
+  }
+
+  static DiscoveryFilter load(final Path configFile) throws IOException {
+    if (!Files.isRegularFile(configFile)) {
+      return DEFAULTS;
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(configFile, UTF_8)) {
+      properties.load(reader);
+    }
+    String includes = properties.getProperty(INCLUDE_KEY);
+    String excludes = properties.getProperty(EXCLUDE_KEY);
+    if (includes == null && excludes == null) {
+      return DEFAULTS;
+    }
+    return new DiscoveryFilter(
+        includes == null ? DEFAULT_INCLUDES : split(includes),
+        excludes == null ? DEFAULT_EXCLUDES : ImmutableSet.copyOf(split(excludes)));
+  }
+
+  boolean isTestFile(final String fileName) {
+    for (int i = 0; i < includes.size(); i++) {
+      if (includes.get(i).test(fileName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  boolean isExcludedDirectory(final String directoryName) {
+    return excludedDirectories.contains(directoryName);
+  }
+
+  private static List<String> split(final String values) {
+    return Arrays.stream(values.split(","))
+        .map(String::trim)
+        .filter(value -> !value.isEmpty())
+        .collect(Collectors.toList());
+  }
+
+  // the common "*Suffix" pattern is a plain endsWith, anything else is a glob
+  private static Predicate<String> compile(final String pattern) {
+    String suffix = pattern.substring(1);
+    if (pattern.startsWith("*") && suffix.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '{')) {
+      return fileName -> fileName.endsWith(suffix);
+    }
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    return fileName -> matcher.matches(Paths.get(fileName));
+  }
+}
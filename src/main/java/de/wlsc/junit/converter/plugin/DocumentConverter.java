@@ -0,0 +1,117 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.github.javaparser.ParseProblemException;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.util.Pair;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Converts the text of a file's {@link Document} instead of its content on disk, so the IDE does not have to reload
+ * and parse the file again and the changes can be undone. The edits are handed to a sink, which applies them on the
+ * EDT by {@link ConvertedDocumentsWriter}. Files without a document are converted on disk, by worker processes if
+ * {@link WorkerSettings} enable them. Loading a document reads and holds the whole file in the IDE, so with workers
+ * only documents which are loaded anyway, e.g. open or unsaved ones, are converted in this process. Files converted
+ * on disk cannot be undone, the summary tells how many there were.
+ */
+class DocumentConverter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(DocumentConverter.class);
+
+  private final ConversionOptions options;
+  private final ConversionIndex index;
+  private final ConversionMetrics metrics;
+  @Nullable
+  private final ConversionWorkerPool workers;
+  private final Consumer<DocumentEdit> edits;
+  private final Queue<DocumentEdit> diskEdits = new ConcurrentLinkedQueue<>();
+
+  DocumentConverter(final ConversionOptions options, final ConversionIndex index, final ConversionMetrics metrics,
+      @Nullable final ConversionWorkerPool workers, final Consumer<DocumentEdit> edits) {
+    this.options = options;
+    this.index = index;
+    this.metrics = metrics;
+    this.workers = workers;
+    this.edits = edits;
+  }
+
+  ConversionResult convert(final Path path) {
+    try {
+      long start = metrics.start();
+      byte[] content = Files.readAllBytes(path);
+      metrics.stop(Phase.READ, start);
+      String hash = ConversionIndex.hash(content);
+      Optional<ConversionResult> screened = JUnit5Converter.INSTANCE.screen(path, content, hash, options, index);
+      if (screened.isPresent()) {
+        return screened.get();
+      }
+
+      Pair<Document, Long> document = findDocument(path);
+      if (Objects.isNull(document)) {
+        ConversionResult result = Objects.isNull(workers)
+            ? JUnit5Converter.INSTANCE.convertToJunit5(path, options, index, metrics)
+            : workers.convert(path, hash, index, metrics);
+        if (result.isConverted()) {
+          diskEdits.add(DocumentEdit.onDisk(result));
+        }
+        return result;
+      }
+
+      String source = ReadAction.compute(() -> document.first.getText());
+      // documents only ever contain \n, whatever the printer used
+      String converted = StringUtil.convertLineSeparators(
+          JUnit5Converter.INSTANCE.convertSource(path, source, options, metrics));
+      if (converted.equals(source)) {
+        index.record(path, hash, ConversionOutcome.UNCHANGED);
+        return ConversionResult.unchanged(path);
+      }
+      ConversionResult result = ConversionResult.converted(path, source, converted);
+      edits.accept(DocumentEdit.inMemory(result, document.first, document.second, converted));
+      return result;
+
+    } catch (IOException e) {
+      LOGGER.error("Cannot read file", e);
+    } catch (ParseProblemException e) {
+      LOGGER.error("Cannot parse file " + path, e);
+    }
+    index.forget(path);
+    return ConversionResult.failed(path);
+  }
+
+  // files converted on disk can only be reformatted once the VFS has seen them
+  List<DocumentEdit> getDiskEdits() {
+    return new ArrayList<>(diskEdits);
+  }
+
+  // the modification stamp is taken before the text is read, so a concurrent change is never missed
+  @Nullable
+  private Pair<Document, Long> findDocument(final Path path) {
+    VirtualFile virtualFile = LocalFileSystem.getInstance().findFileByIoFile(path.toFile());
+    if (Objects.isNull(virtualFile) || !virtualFile.isValid()) {
+      return null;
+    }
+    return ReadAction.compute(() -> {
+      Document document = Objects.isNull(workers)
+          ? FileDocumentManager.getInstance().getDocument(virtualFile)
+          : FileDocumentManager.getInstance().getCachedDocument(virtualFile);
+      return Objects.isNull(document) ? null : Pair.create(document, document.getModificationStamp());
+    });
+  }
+}
@@ -0,0 +1,52 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.intellij.openapi.editor.Document;
+import org.jetbrains.annotations.Nullable;
+
+// converted text waiting to be applied to its document, both are null if the file was written to disk directly
+final class DocumentEdit {
+
+  private final ConversionResult result;
+  private final Document document;
+  private final long modificationStamp;
+  private final String convertedText;
+
+  private DocumentEdit(final ConversionResult result, final Document document, final long modificationStamp,
+      final String convertedText) {
+    this.result = result;
+    this.document = document;
+    this.modificationStamp = modificationStamp;
+    this.convertedText = convertedText;
+  }
+
+  static DocumentEdit inMemory(final ConversionResult result, final Document document, final long modificationStamp,
+      final String convertedText) {
+    return new DocumentEdit(result, document, modificationStamp, convertedText);
+  }
+
+  static DocumentEdit onDisk(final ConversionResult result) {
+    return new DocumentEdit(result, null, -1, null);
+  }
+
+  ConversionResult getResult() {
+    return result;
+  }
+
+  @Nullable
+  Document getDocument() {
+    return document;
+  }
+
+  long getModificationStamp() {
+    return modificationStamp;
+  }
+
+  @Nullable
+  String getConvertedText() {
+    return convertedText;
+  }
+
+  boolean isOnDisk() {
+    return document == null;
+  }
+}
@@ -0,0 +1,217 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.util.stream.Collectors.toList;
+
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import de.wlsc.junit.converter.plugin.visitor.TypeResolution;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Converts a source tree without an IDE, e.g. on a build agent:
+ * <pre>
+ * HeadlessConverter &lt;root&gt; [--parallelism N] [--output lexical|pretty] [--rules FILE] [--index FILE]
+ *                   [--report FILE] [--classpath JARS] [--bodies lazy|eager] [--changed-since REVISION]
+ * </pre>
+ * Rewrite rules are read from {@value ConversionOptions#RULES_FILE_NAME} in the root unless {@code --rules} is
+ * given. Without {@code --index} every run converts all files again, with it an interrupted run is resumed.
+ * {@code --report} writes the run's metrics as JSON. {@code --classpath} enables type resolution against the given
+ * jars, e.g. to leave Hamcrest or TestNG assertions alone. {@code --bodies eager} parses the bodies of helper methods
+ * too, which lexical output skips by default. {@code --changed-since} converts only the test files changed on the
+ * branch since it forked from the given git revision, uncommitted and new ones included.
+ */
+public final class HeadlessConverter {
+
+  private static final int PROGRESS_INTERVAL = 1000;
+  private static final int PIPELINE_BATCH_SIZE = 100;
+  // a headless run is stopped by killing it, there is nothing to check in between
+  private static final Runnable NEVER_CANCELED = () -> { };
+
+  private final PrintStream out;
+
+  private HeadlessConverter(final PrintStream out) {
+    this.out = out;
+  }
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length == 0 || "--help".equals(args[0])) {
+      System.out.println("Usage: HeadlessConverter <root> [--parallelism N] [--output lexical|pretty]"
+          + " [--rules FILE] [--index FILE] [--report FILE] [--classpath JARS] [--bodies lazy|eager]"
+          + " [--changed-since REVISION]");
+      return;
+    }
+    int failed = convert(System.out, args);
+    if (failed > 0) {
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Runs a conversion with the arguments of {@link #main(String[])}, but prints to {@code out} and returns the
+   * number of files that failed instead of exiting, e.g. for a harness timing whole runs.
+   */
+  public static int convert(final PrintStream out, final String... args) throws IOException {
+    return new HeadlessConverter(out).run(args);
+  }
+
+  private int run(final String[] args) throws IOException {
+    Path root = Paths.get(args[0]).toAbsolutePath().normalize();
+    if (!Files.isDirectory(root)) {
+      throw new IllegalArgumentException("Root directory does not exist: " + root);
+    }
+    Path rulesFile = root.resolve(ConversionOptions.RULES_FILE_NAME);
+    Path indexFile = null;
+    Path reportFile = null;
+    String baseRevision = null;
+    ConversionOptions options = ConversionOptions.defaults();
+
+    for (int i = 1; i < args.length; i++) {
+      String value = i + 1 < args.length ? args[i + 1] : null;
+      switch (args[i]) {
+        case "--parallelism":
+          options = options.withParallelism(Integer.parseInt(required(args[i], value)));
+          break;
+        case "--output":
+          options = options.withOutputMode(outputMode(required(args[i], value)));
+          break;
+        case "--rules":
+          rulesFile = Paths.get(required(args[i], value));
+          break;
+        case "--index":
+          indexFile = Paths.get(required(args[i], value));
+          break;
+        case "--report":
+          reportFile = Paths.get(required(args[i], value));
+          break;
+        case "--classpath":
+          options = options.withTypeResolution(TypeResolution.create(classpath(required(args[i], value))));
+          break;
+        case "--changed-since":
+          baseRevision = required(args[i], value);
+          break;
+        case "--bodies":
+          options = options.withLazyMethodBodies(lazyMethodBodies(required(args[i], value)));
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown option: " + args[i]);
+      }
+      i++;
+    }
+    options = options.withRewriteRules(RewriteRules.load(rulesFile));
+    String rulesFingerprint = ConversionIndex.rulesFingerprint(rulesFile);
+    ConversionIndex index = indexFile == null
+        ? ConversionIndex.inMemory()
+        : ConversionIndex.load(indexFile, rulesFingerprint);
+    // without an index finished files are unknown, so there is nothing to resume; a change is small anyway
+    ConversionCheckpoint checkpoint = indexFile == null || baseRevision != null
+        ? null
+        : ConversionCheckpoint.of(indexFile.resolveSibling(indexFile.getFileName() + ".checkpoint"), root,
+            rulesFingerprint);
+
+    ConversionMetrics metrics = new ConversionMetrics();
+    long start = metrics.start();
+    AtomicInteger discoveredFiles = new AtomicInteger();
+    AtomicInteger processedFiles = new AtomicInteger();
+    Queue<Path> failedFiles = new ConcurrentLinkedQueue<>();
+    ConversionOptions conversionOptions = options;
+    ConversionPipeline<Void> pipeline = new ConversionPipeline<>(options.getParallelism(), PIPELINE_BATCH_SIZE,
+        metrics, new ConversionProgress() {
+          @Override
+          public boolean isCanceled() {
+            return false;
+          }
+
+          @Override
+          public void fileDiscovered(final Path path) {
+            discoveredFiles.incrementAndGet();
+          }
+
+          @Override
+          public void fileProcessed(final ConversionResult result) {
+            if (result.getOutcome() == ConversionOutcome.FAILED) {
+              failedFiles.add(result.getPath());
+            }
+            int processed = processedFiles.incrementAndGet();
+            if (processed % PROGRESS_INTERVAL == 0) {
+              out.printf("%d of %d files found so far (%.1f files/s)%n", processed, discoveredFiles.get(),
+                  filesPerSecond(processed, start));
+            }
+          }
+        });
+    DiscoveryFilter filter = DiscoveryFilter.load(rulesFile);
+    ConversionPipeline.Discovery discovery = baseRevision != null
+        ? ChangedFileDiscovery.sinceRevision(root, baseRevision, filter)
+        : sink -> TestFileDiscovery.find(root, filter, NEVER_CANCELED, sink);
+    // files are written by the workers themselves, there is nothing left for the write stage
+    pipeline.run(checkpoint == null ? discovery : checkpoint.discovery(discovery),
+        path -> JUnit5Converter.INSTANCE.convertToJunit5(path, conversionOptions, index, metrics),
+        batch -> { });
+    index.save();
+    if (checkpoint != null) {
+      checkpoint.complete();
+    }
+
+    failedFiles.forEach(path -> out.println("Failed: " + path));
+    out.printf("Processed %d test files below %s in %.1f s (%.1f files/s)%n", processedFiles.get(), root,
+        (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1),
+        filesPerSecond(processedFiles.get(), start));
+    out.print(metrics.summary());
+    if (reportFile != null) {
+      metrics.writeReport(reportFile);
+      out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+    return (int) metrics.getOutcomeCount(ConversionOutcome.FAILED);
+  }
+
+  private static double filesPerSecond(final int files, final long start) {
+    double seconds = (System.nanoTime() - start) / (double) TimeUnit.SECONDS.toNanos(1);
+    return seconds > 0 ? files / seconds : 0;
+  }
+
+  private static List<Path> classpath(final String value) {
+    return Arrays.stream(value.split(File.pathSeparator))
+        .filter(entry -> !entry.isEmpty())
+        .map(Paths::get)
+        .collect(toList());
+  }
+
+  private static OutputMode outputMode(final String value) {
+    switch (value.toLowerCase(Locale.ROOT)) {
+      case "lexical":
+        return OutputMode.LEXICAL_PRESERVING;
+      case "pretty":
+        return OutputMode.PRETTY_PRINT;
+      default:
+        throw new IllegalArgumentException("Unknown output mode: " + value);
+    }
+  }
+
+  private static boolean lazyMethodBodies(final String value) {
+    switch (value.toLowerCase(Locale.ROOT)) {
+      case "lazy":
+        return true;
+      case "eager":
+        return false;
+      default:
+        throw new IllegalArgumentException("Unknown body parsing: " + value);
+    }
+  }
+
+  private static String required(final String option, final String value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Missing value for " + option);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,75 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.impl.cache.CacheManager;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.search.GlobalSearchScopesCore;
+import com.intellij.psi.search.UsageSearchContext;
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Finds test files through the IDE's word index instead of walking the file system: only files containing the
+ * word {@code junit} or the last name segment of a custom rewrite rule are looked at, excluded folders are not
+ * indexed at all. Files below production source roots are skipped, files outside of any source root are kept for
+ * projects without configured test roots. Candidates are handed on one by one as the words are looked up, so the
+ * first files are converted while the index is still being asked for the others.
+ */
+class IndexedTestFileDiscovery implements ConversionPipeline.Discovery {
+
+  private static final String JUNIT_WORD = "junit";
+
+  private final Project project;
+  private final VirtualFile selectedFile;
+  private final DiscoveryFilter filter;
+  private final Set<String> words = new LinkedHashSet<>();
+
+  IndexedTestFileDiscovery(final Project project, final VirtualFile selectedFile, final DiscoveryFilter filter,
+      final RewriteRules rules) {
+    this.project = project;
+    this.selectedFile = selectedFile;
+    this.filter = filter;
+    words.add(JUNIT_WORD);
+    // the index knows identifiers only, e.g. AcmeRule of import.org.acme.AcmeRule
+    rules.getCustomNames().forEach(name -> words.add(name.substring(name.lastIndexOf('.') + 1)));
+  }
+
+  @Override
+  public void find(final Consumer<Path> sink) {
+    DumbService dumbService = DumbService.getInstance(project);
+    GlobalSearchScope scope = dumbService.runReadActionInSmartMode(this::scope);
+    CacheManager cacheManager = CacheManager.getInstance(project);
+    ProjectFileIndex fileIndex = ProjectFileIndex.getInstance(project);
+    Set<VirtualFile> candidates = new HashSet<>();
+    for (String word : words) {
+      VirtualFile[] files = dumbService.runReadActionInSmartMode(
+          () -> cacheManager.getVirtualFilesWithWord(word, UsageSearchContext.IN_CODE, scope, true));
+      // the sink blocks while the workers are behind, so it is called outside of any read action
+      for (VirtualFile file : files) {
+        if (candidates.add(file) && filter.isTestFile(file.getName())
+            && ReadAction.compute(() -> isTestSource(fileIndex, file))) {
+          sink.accept(Paths.get(file.getPath()));
+        }
+      }
+    }
+  }
+
+  private GlobalSearchScope scope() {
+    return selectedFile.isDirectory()
+        ? GlobalSearchScopesCore.directoryScope(project, selectedFile, true)
+        : GlobalSearchScope.fileScope(project, selectedFile);
+  }
+
+  private static boolean isTestSource(final ProjectFileIndex fileIndex, final VirtualFile file) {
+    return file.isValid() && (fileIndex.isInTestSourceContent(file) || !fileIndex.isInSourceContent(file));
+  }
+}
@@ -0,0 +1,84 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.intellij.codeInspection.AbstractBaseJavaLocalInspectionTool;
+import com.intellij.codeInspection.LocalQuickFix;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.JavaElementVisitor;
+import com.intellij.psi.PsiAnnotation;
+import com.intellij.psi.PsiAnnotationMemberValue;
+import com.intellij.psi.PsiClassObjectAccessExpression;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiImportStatement;
+import com.intellij.psi.PsiImportStatementBase;
+import com.intellij.psi.PsiImportStaticStatement;
+import com.intellij.psi.PsiJavaCodeReferenceElement;
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import java.io.IOException;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Highlights JUnit 4 imports and annotations the converter rewrites, so that tests can be migrated file by file as
+ * they are edited. Only the PSI of the highlighted file is looked at: names are resolved by the IDE, which leaves
+ * e.g. TestNG's {@code @Test} alone, and the rewrite rules are the project's cached ones.
+ */
+public class JUnit4Inspection extends AbstractBaseJavaLocalInspectionTool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(JUnit4Inspection.class);
+  private static final String RUN_WITH = "org.junit.runner.RunWith";
+
+  @NotNull
+  @Override
+  public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, final boolean isOnTheFly) {
+    RewriteRules rules = rewriteRules(holder);
+    LocalQuickFix fix = new ConvertFileToJUnit5Fix();
+    return new JavaElementVisitor() {
+      @Override
+      public void visitImportStatement(final PsiImportStatement statement) {
+        checkImport(statement);
+      }
+
+      @Override
+      public void visitImportStaticStatement(final PsiImportStaticStatement statement) {
+        checkImport(statement);
+      }
+
+      @Override
+      public void visitAnnotation(final PsiAnnotation annotation) {
+        if (isRewritten(annotation, rules)) {
+          holder.registerProblem(annotation, "JUnit 4 annotation can be converted to JUnit 5", fix);
+        }
+      }
+
+      private void checkImport(final PsiImportStatementBase statement) {
+        PsiJavaCodeReferenceElement reference = statement.getImportReference();
+        if (reference != null && rules.rewritesName(reference.getQualifiedName())) {
+          holder.registerProblem(statement, "JUnit 4 import can be converted to JUnit 5", fix);
+        }
+      }
+    };
+  }
+
+  private static boolean isRewritten(final PsiAnnotation annotation, final RewriteRules rules) {
+    String qualifiedName = annotation.getQualifiedName();
+    if (qualifiedName == null) {
+      return false;
+    }
+    if (!RUN_WITH.equals(qualifiedName)) {
+      return rules.rewritesName(qualifiedName);
+    }
+    PsiAnnotationMemberValue runner = annotation.findAttributeValue("value");
+    return runner instanceof PsiClassObjectAccessExpression
+        && rules.rewritesRunner(((PsiClassObjectAccessExpression) runner).getOperand().getType().getCanonicalText());
+  }
+
+  private static RewriteRules rewriteRules(final ProblemsHolder holder) {
+    try {
+      return ProjectConversionOptions.getInstance(holder.getProject()).getRewriteRules();
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read rewrite rules, highlighting with the default ones", e);
+      return RewriteRules.defaults();
+    }
+  }
+}
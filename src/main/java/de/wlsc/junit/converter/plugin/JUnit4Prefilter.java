@@ -0,0 +1,90 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+
+/**
+ * Cheap byte scan deciding whether a file can contain anything {@code JUnit4Visitor} rewrites. Every JUnit 4
+ * construct the visitor knows about is reachable only through an {@code org.junit} import or a fully qualified
+ * {@code org.junit} name, Jupiter and platform packages excluded. Runner replacement additionally needs
+ * {@code RunWith}. Custom rules apply to files mentioning one of their names, see
+ * {@link RewriteRules#getCustomNames()}.
+ */
+final class JUnit4Prefilter {
+
+  private static final byte[] JUNIT_PACKAGE = "org.junit.".getBytes(US_ASCII);
+  private static final byte[] RUN_WITH = "RunWith".getBytes(US_ASCII);
+  private static final byte[][] JUNIT_5_PACKAGES = {
+      "jupiter.".getBytes(US_ASCII),
+      "platform.".getBytes(US_ASCII)
+  };
+  private static final JUnit4Prefilter DEFAULTS = new JUnit4Prefilter(new byte[0][]);
+
+  private final byte[][] customNames;
+
+  private JUnit4Prefilter(final byte[][] customNames) {
+    this.customNames = customNames;
+  }
+
+  static JUnit4Prefilter forRules(final RewriteRules rules) {
+    if (rules.getCustomNames().isEmpty()) {
+      return DEFAULTS;
+    }
+    return new JUnit4Prefilter(rules.getCustomNames().stream()
+        .map(name -> name.getBytes(UTF_8))
+        .toArray(byte[][]::new));
+  }
+
+  boolean mayContainJUnit4(final byte[] content) {
+    int from = 0;
+    while ((from = indexOf(content, JUNIT_PACKAGE, from)) >= 0) {
+      from += JUNIT_PACKAGE.length;
+      if (!startsWithAny(content, from, JUNIT_5_PACKAGES)) {
+        return true;
+      }
+    }
+    if (indexOf(content, RUN_WITH, 0) >= 0) {
+      return true;
+    }
+    for (byte[] name : customNames) {
+      if (indexOf(content, name, 0) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWithAny(final byte[] content, final int offset, final byte[][] prefixes) {
+    for (byte[] prefix : prefixes) {
+      if (regionMatches(content, offset, prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int indexOf(final byte[] content, final byte[] token, final int from) {
+    byte first = token[0];
+    int last = content.length - token.length;
+    for (int i = from; i <= last; i++) {
+      if (content[i] == first && regionMatches(content, i, token)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean regionMatches(final byte[] content, final int offset, final byte[] token) {
+    if (offset + token.length > content.length) {
+      return false;
+    }
+    for (int i = 1; i < token.length; i++) {
+      if (content[offset + i] != token[i]) {
+        return false;
+      }
+    }
+    return content[offset] == token[0];
+  }
+}
@@ -1,56 +1,116 @@
 package de.wlsc.junit.converter.plugin;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Objects.isNull;
-
-import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
 import com.github.javaparser.ast.CompilationUnit;
-import com.intellij.openapi.actionSystem.AnActionEvent;
-import com.intellij.openapi.project.Project;
-import com.intellij.openapi.project.ProjectUtil;
-import com.intellij.openapi.vfs.VirtualFile;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
 import de.wlsc.junit.converter.plugin.visitor.JUnit4Visitor;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public enum JUnit5Converter {
-  INSTANCE(new JUnit4Visitor());
+  INSTANCE;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JUnit5Converter.class);
-  private final JUnit4Visitor jUnit4Visitor;
 
-  JUnit5Converter(final JUnit4Visitor jUnit4Visitor) {
-    this.jUnit4Visitor = jUnit4Visitor;
+  ConversionResult convertToJunit5(final Path path, final ConversionOptions options, final ConversionIndex index,
+      final ConversionMetrics metrics) {
+    try {
+      long start = metrics.start();
+      byte[] content = Files.readAllBytes(path);
+      metrics.stop(Phase.READ, start);
+      String hash = ConversionIndex.hash(content);
+      Optional<ConversionResult> screened = screen(path, content, hash, options, index);
+      if (screened.isPresent()) {
+        return screened.get();
+      }
+
+      SourceEncoding encoding = SourceEncoding.detect(content);
+      String source = encoding.decode(content);
+      String converted = convertSource(path, source, options, metrics);
+      if (converted.equals(source)) {
+        index.record(path, hash, ConversionOutcome.UNCHANGED);
+        return ConversionResult.unchanged(path);
+      }
+
+      start = metrics.start();
+      String convertedHash = encoding.write(path, converted);
+      metrics.stop(Phase.WRITE, start);
+      index.record(path, convertedHash, ConversionOutcome.CONVERTED);
+      return ConversionResult.converted(path, source, converted);
+
+    } catch (IOException e) {
+      LOGGER.error("Cannot read/write file", e);
+    } catch (ParseProblemException e) {
+      LOGGER.error("Cannot parse file " + path, e);
+    }
+    index.forget(path);
+    return ConversionResult.failed(path);
   }
 
-  boolean isFileNotWritable(final VirtualFile data) {
-    return data == null || !data.exists() || !data.isWritable();
+  // decides on the raw content whether a file has to be parsed at all
+  Optional<ConversionResult> screen(final Path path, final byte[] content, final String hash,
+      final ConversionOptions options, final ConversionIndex index) {
+    if (index.isUpToDate(path, hash)) {
+      return Optional.of(ConversionResult.skipped(path));
+    }
+    if (!options.getPrefilter().mayContainJUnit4(content)) {
+      index.record(path, hash, ConversionOutcome.UNCHANGED);
+      return Optional.of(ConversionResult.unchanged(path));
+    }
+    return Optional.empty();
   }
 
-  void convertToJunit5(final Path path) {
-    try {
-      CompilationUnit unit = StaticJavaParser.parse(path);
-      unit.accept(jUnit4Visitor, null);
+  String convertSource(final Path path, final String source, final ConversionOptions options,
+      final ConversionMetrics metrics) {
+    long start = metrics.start();
+    boolean lexicalPreserving = options.getOutputMode() == OutputMode.LEXICAL_PRESERVING;
+    // only the lexical printer reproduces the placeholders of skipped bodies verbatim
+    LazyMethodBodies bodies = lexicalPreserving && options.isLazyMethodBodies()
+        ? LazyMethodBodies.elide(source)
+        : LazyMethodBodies.none(source);
+    CompilationUnit unit = parse(bodies.getSource(), options.getOutputMode());
+    if (lexicalPreserving) {
+      LexicalPreservingPrinter.setup(unit);
+    }
+    metrics.stop(Phase.PARSE, start);
 
-      Files.write(path, unit.toString().getBytes(UTF_8));
+    start = metrics.start();
+    JUnit4Visitor visitor = new JUnit4Visitor(options.getRewriteRules(), options.getTypeResolution());
+    unit.accept(visitor, null);
+    metrics.rewritesFired(visitor.getFiredRewrites());
+    metrics.stop(Phase.VISIT, start);
 
-    } catch (IOException e) {
-      LOGGER.error("Cannot read/write file", e);
+    start = metrics.start();
+    String converted = bodies.restore(lexicalPreserving ? printPreservingLayout(path, unit) : unit.toString());
+    metrics.stop(Phase.PRINT, start);
+    if (converted == null) {
+      LOGGER.warn("Cannot restore the skipped method bodies of " + path + ", converting it with all bodies");
+      return convertSource(path, source, options.withLazyMethodBodies(false), metrics);
     }
+    return converted;
   }
 
-  void refreshProject(final AnActionEvent actionEvent) {
-    Project project = actionEvent.getProject();
-    if (isNull(project)) {
-      return;
+  private String printPreservingLayout(final Path path, final CompilationUnit unit) {
+    try {
+      return LexicalPreservingPrinter.print(unit);
+    } catch (RuntimeException e) {
+      // the lexical printer does not support every kind of node replacement, the AST itself is fine though
+      LOGGER.warn("Cannot preserve layout of " + path + ", falling back to pretty printing", e);
+      return unit.toString();
     }
-    VirtualFile projectDir = ProjectUtil.guessProjectDir(project);
-    if (isNull(projectDir)) {
-      return;
+  }
+
+  private CompilationUnit parse(final String source, final OutputMode outputMode) {
+    ParseResult<CompilationUnit> result = ParserPool.get(outputMode).parse(source);
+    if (!result.isSuccessful() || result.getResult().isEmpty()) {
+      throw new ParseProblemException(result.getProblems());
     }
-    projectDir.refresh(false, true);
+    return result.getResult().get();
   }
 }
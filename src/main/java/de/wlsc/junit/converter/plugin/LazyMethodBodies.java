@@ -0,0 +1,309 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Replaces the bodies of helper methods by a placeholder comment before a file is parsed, and puts them back into
+ * the printed result. A body is kept if its method carries an annotation or the body mentions anything
+ * {@code JUnit4Visitor} rewrites: assertions, assumptions, {@code TemporaryFolder} files, annotations or local
+ * classes. Big test classes are mostly helpers, their bodies then cost a text scan instead of a parse.
+ * <p>
+ * The placeholder keeps the line breaks of the body, so positions reported by the parser stay correct. Blanking a
+ * block is always valid Java, a block misjudged as a method body at worst costs the time it would have saved.
+ */
+final class LazyMethodBodies {
+
+  private static final String PLACEHOLDER_START = "/*junit5-converter:body:";
+  private static final String PLACEHOLDER_END = "*/";
+  private static final Pattern RELEVANT_BODY = Pattern.compile(
+      "[Aa]ssert|[Aa]ssume|newFile|@|(?<![\\w$.])(?:class|interface|enum|record)(?![\\w$])");
+  private static final Pattern TYPE_DECLARATION = Pattern.compile(
+      "(?<![\\w$.])(?:class|interface|enum|record)(?![\\w$])");
+  private static final Pattern METHOD_HEADER_END = Pattern.compile("\\)\\s*(?:throws\\s+[\\w$.<>,?\\s]+)?$");
+  private static final Pattern LINE_BREAK = Pattern.compile("\\r\\n|\\r|\\n");
+  // annotations which do not make a helper method relevant, javadoc tags are skipped with the comments
+  private static final ImmutableSet<String> IGNORED_ANNOTATIONS = ImmutableSet.of("Override", "SuppressWarnings",
+      "SafeVarargs", "Deprecated", "java.lang.Override", "java.lang.SuppressWarnings", "java.lang.SafeVarargs",
+      "java.lang.Deprecated");
+
+  private final String source;
+  private final List<String> placeholders;
+  private final List<String> bodies;
+
+  private LazyMethodBodies(final String source, final List<String> placeholders, final List<String> bodies) {
+    this.source = source;
+    this.placeholders = placeholders;
+    this.bodies = bodies;
+  }
+
+  static LazyMethodBodies none(final String source) {
+    return new LazyMethodBodies(source, new ArrayList<>(), new ArrayList<>());
+  }
+
+  static LazyMethodBodies elide(final String source) {
+    if (source.contains(PLACEHOLDER_START)) {
+      return none(source);
+    }
+    List<int[]> ranges = new Scanner(source).findIrrelevantBodies();
+    if (ranges.isEmpty()) {
+      return none(source);
+    }
+    StringBuilder elided = new StringBuilder(source.length());
+    List<String> placeholders = new ArrayList<>(ranges.size());
+    List<String> bodies = new ArrayList<>(ranges.size());
+    int copied = 0;
+    for (int[] range : ranges) {
+      String body = source.substring(range[0], range[1]);
+      String placeholder = PLACEHOLDER_START + bodies.size() + PLACEHOLDER_END + lineBreaks(body);
+      elided.append(source, copied, range[0]).append(placeholder);
+      copied = range[1];
+      placeholders.add(placeholder);
+      bodies.add(body);
+    }
+    elided.append(source, copied, source.length());
+    return new LazyMethodBodies(elided.toString(), placeholders, bodies);
+  }
+
+  String getSource() {
+    return source;
+  }
+
+  // null if the printer did not reproduce every placeholder exactly once
+  @Nullable
+  String restore(final String printed) {
+    if (bodies.isEmpty()) {
+      return printed;
+    }
+    StringBuilder restored = new StringBuilder(printed.length() + source.length());
+    boolean[] seen = new boolean[bodies.size()];
+    int copied = 0;
+    int start;
+    while ((start = printed.indexOf(PLACEHOLDER_START, copied)) >= 0) {
+      int numberStart = start + PLACEHOLDER_START.length();
+      int end = printed.indexOf(PLACEHOLDER_END, numberStart);
+      int number = end < 0 ? -1 : parseNumber(printed.substring(numberStart, end));
+      if (number < 0 || number >= bodies.size() || seen[number]) {
+        return null;
+      }
+      seen[number] = true;
+      restored.append(printed, copied, start).append(bodies.get(number));
+      copied = printed.startsWith(placeholders.get(number), start)
+          ? start + placeholders.get(number).length()
+          : end + PLACEHOLDER_END.length();
+    }
+    for (boolean restoredBody : seen) {
+      if (!restoredBody) {
+        return null;
+      }
+    }
+    return restored.append(printed, copied, printed.length()).toString();
+  }
+
+  private static int parseNumber(final String text) {
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static String lineBreaks(final String text) {
+    StringBuilder lineBreaks = new StringBuilder();
+    Matcher matcher = LINE_BREAK.matcher(text);
+    while (matcher.find()) {
+      lineBreaks.append(matcher.group());
+    }
+    return lineBreaks.toString();
+  }
+
+  private enum BlockKind {
+    TOP_LEVEL, TYPE_BODY, METHOD_BODY, OTHER
+  }
+
+  private static final class Block {
+
+    private final BlockKind kind;
+    private final int start;
+    private final boolean enumBody;
+    private final boolean relevantHeader;
+    // opened within parentheses, e.g. an array in an annotation, so it does not end a member
+    private final boolean nested;
+    private int memberStart;
+    private int parenthesisDepth;
+    private boolean annotatedMember;
+    private boolean enumConstantsDone;
+
+    private Block(final BlockKind kind, final int start, final boolean enumBody, final boolean relevantHeader,
+        final boolean nested) {
+      this.kind = kind;
+      this.start = start;
+      this.enumBody = enumBody;
+      this.relevantHeader = relevantHeader;
+      this.nested = nested;
+      this.memberStart = start;
+    }
+
+    private void startMember(final int offset) {
+      memberStart = offset;
+      annotatedMember = false;
+    }
+  }
+
+  // a minimal lexer: skips comments and literals, tracks braces and classifies the blocks they open
+  private static final class Scanner {
+
+    private final String source;
+    private final Deque<Block> blocks = new ArrayDeque<>();
+    private final List<int[]> irrelevantBodies = new ArrayList<>();
+
+    private Scanner(final String source) {
+      this.source = source;
+    }
+
+    private List<int[]> findIrrelevantBodies() {
+      blocks.push(new Block(BlockKind.TOP_LEVEL, 0, false, false, false));
+      int length = source.length();
+      int i = 0;
+      while (i < length) {
+        char c = source.charAt(i);
+        if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+          i = skipTo("\n", i + 2);
+        } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+          i = skipTo("*/", i + 2);
+        } else if (c == '"' && source.startsWith("\"\"\"", i)) {
+          i = skipLiteral("\"\"\"", i + 3);
+        } else if (c == '"' || c == '\'') {
+          i = skipLiteral(String.valueOf(c), i + 1);
+        } else if (c == '@') {
+          i = annotation(i + 1);
+        } else {
+          if (!structure(c, i)) {
+            return new ArrayList<>();
+          }
+          i++;
+        }
+      }
+      return blocks.size() == 1 ? irrelevantBodies : new ArrayList<>();
+    }
+
+    // false if the braces do not match, the file is then parsed as it is
+    private boolean structure(final char c, final int offset) {
+      Block block = blocks.peek();
+      switch (c) {
+        case '(':
+          block.parenthesisDepth++;
+          break;
+        case ')':
+          block.parenthesisDepth--;
+          break;
+        case ';':
+          if (block.parenthesisDepth == 0) {
+            block.startMember(offset + 1);
+            block.enumConstantsDone = block.enumBody;
+          }
+          break;
+        case '{':
+          blocks.push(open(block, offset));
+          break;
+        case '}':
+          if (blocks.size() == 1) {
+            return false;
+          }
+          close(blocks.pop(), offset);
+          break;
+        default:
+          break;
+      }
+      return true;
+    }
+
+    private Block open(final Block parent, final int offset) {
+      boolean nested = parent.parenthesisDepth > 0;
+      String header = source.substring(parent.memberStart, offset);
+      BlockKind kind = BlockKind.OTHER;
+      if (!nested && parent.kind == BlockKind.TYPE_BODY && !(parent.enumBody && !parent.enumConstantsDone)
+          && isMethodHeader(header)) {
+        kind = BlockKind.METHOD_BODY;
+      } else if (!nested && parent.kind != BlockKind.METHOD_BODY && parent.kind != BlockKind.OTHER
+          && TYPE_DECLARATION.matcher(header).find()) {
+        kind = BlockKind.TYPE_BODY;
+      } else if (parent.enumBody && !parent.enumConstantsDone && !nested) {
+        // the class body of an enum constant
+        kind = BlockKind.TYPE_BODY;
+      }
+      boolean enumBody = kind == BlockKind.TYPE_BODY && header.matches("(?s).*(?<![\\w$.])enum(?![\\w$]).*");
+      return new Block(kind, offset + 1, enumBody, parent.annotatedMember, nested);
+    }
+
+    private void close(final Block block, final int offset) {
+      if (block.kind == BlockKind.METHOD_BODY && !block.relevantHeader) {
+        String body = source.substring(block.start, offset);
+        if (!body.trim().isEmpty() && !RELEVANT_BODY.matcher(body).find()) {
+          irrelevantBodies.add(new int[]{block.start, offset});
+        }
+      }
+      if (!block.nested) {
+        blocks.peek().startMember(offset + 1);
+      }
+    }
+
+    private static boolean isMethodHeader(final String header) {
+      int depth = 0;
+      for (int i = 0; i < header.length(); i++) {
+        char c = header.charAt(i);
+        if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          depth--;
+        } else if (c == '=' && depth == 0) {
+          // a field initializer, e.g. a lambda or an anonymous class
+          return false;
+        }
+      }
+      return METHOD_HEADER_END.matcher(header).find();
+    }
+
+    private int annotation(final int offset) {
+      int end = offset;
+      while (end < source.length()
+          && (Character.isJavaIdentifierPart(source.charAt(end)) || source.charAt(end) == '.')) {
+        end++;
+      }
+      String name = source.substring(offset, end);
+      if (!IGNORED_ANNOTATIONS.contains(name)) {
+        blocks.peek().annotatedMember = true;
+      }
+      return end;
+    }
+
+    private int skipTo(final String terminator, final int offset) {
+      int end = source.indexOf(terminator, offset);
+      return end < 0 ? source.length() : end + terminator.length();
+    }
+
+    private int skipLiteral(final String delimiter, final int offset) {
+      int i = offset;
+      while (i < source.length()) {
+        char c = source.charAt(i);
+        if (c == '\\') {
+          i += 2;
+        } else if (source.startsWith(delimiter, i)) {
+          return i + delimiter.length();
+        } else if (c == '\n' && delimiter.length() == 1) {
+          // unterminated literal, the parser reports it
+          return i;
+        } else {
+          i++;
+        }
+      }
+      return i;
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package de.wlsc.junit.converter.plugin;
+
+enum OutputMode {
+  // prints the whole compilation unit again, untouched code gets JavaParser's formatting
+  PRETTY_PRINT,
+  // keeps every untouched token as it was, only rewritten nodes are printed anew
+  LEXICAL_PRESERVING
+}
@@ -0,0 +1,30 @@
+package de.wlsc.junit.converter.plugin;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Hands out one {@link JavaParser} per worker thread and output mode, JavaParser instances are not thread-safe.
+ * Each mode gets a configuration doing only the work its printer needs: the lexical printer keeps comments through
+ * the tokens and does not need them attributed to nodes. The pretty printer prints comments from the nodes, which
+ * JavaParser collects from the stored tokens, so that parser keeps both.
+ */
+final class ParserPool {
+
+  private static final ThreadLocal<Map<OutputMode, JavaParser>> PARSERS =
+      ThreadLocal.withInitial(() -> new EnumMap<>(OutputMode.class));
+
+  private ParserPool() {
+  }
+
+  static JavaParser get(final OutputMode outputMode) {
+    return PARSERS.get().computeIfAbsent(outputMode, mode -> new JavaParser(configuration(mode)));
+  }
+
+  private static ParserConfiguration configuration(final OutputMode outputMode) {
+    return new ParserConfiguration()
+        .setAttributeComments(outputMode != OutputMode.LEXICAL_PRESERVING);
+  }
+}
@@ -0,0 +1,217 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import de.wlsc.junit.converter.plugin.visitor.TypeResolution;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Conversion options of a project, shared by batch conversions, the inspection and its quick-fix. The rewrite rules
+ * are read again once the VFS reported a change of the rules file, the type resolution is built again once the
+ * project's libraries changed. Both are cheap to ask for while they are up to date, e.g. from the editor's
+ * highlighting pass, which does not touch the disk.
+ * <p>
+ * Type resolution reads every library jar and is off unless enabled in {@value ConversionOptions#RULES_FILE_NAME}
+ * with {@code resolution.types=true}.
+ */
+public final class ProjectConversionOptions implements Disposable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ProjectConversionOptions.class);
+  private static final String TYPE_RESOLUTION_KEY = "resolution.types";
+
+  private final Project project;
+  private final Object typeResolutionLock = new Object();
+  private final AtomicBoolean typeResolutionScheduled = new AtomicBoolean();
+  private final SimpleModificationTracker rulesModification = new SimpleModificationTracker();
+  private volatile CachedRules rules;
+  private volatile CachedTypeResolution typeResolution;
+
+  public ProjectConversionOptions(final Project project) {
+    this.project = project;
+    project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull final List<? extends VFileEvent> events) {
+        if (events.stream().anyMatch(ProjectConversionOptions::mayChangeRules)) {
+          rulesModification.incModificationCount();
+        }
+      }
+    });
+  }
+
+  @Override
+  public void dispose() {
+    // the VFS listener is disconnected along with this service
+  }
+
+  static ProjectConversionOptions getInstance(final Project project) {
+    return ServiceManager.getService(project, ProjectConversionOptions.class);
+  }
+
+  Path getRulesFile() {
+    return Paths.get(Objects.requireNonNullElse(project.getBasePath(), ""), ConversionOptions.RULES_FILE_NAME);
+  }
+
+  RewriteRules getRewriteRules() throws IOException {
+    return rules().rules;
+  }
+
+  boolean isTypeResolutionEnabled() throws IOException {
+    return rules().typeResolutionEnabled;
+  }
+
+  private CachedRules rules() throws IOException {
+    // taken before the file is read, so a change while reading is never missed
+    long modification = rulesModification.getModificationCount();
+    CachedRules cached = rules;
+    if (cached == null || cached.modification != modification) {
+      Path rulesFile = getRulesFile();
+      cached = new CachedRules(RewriteRules.load(rulesFile), readTypeResolutionEnabled(rulesFile), modification);
+      rules = cached;
+    }
+    return cached;
+  }
+
+  // any rules file, also of another project, created, changed, deleted, moved or renamed to or from it
+  private static boolean mayChangeRules(final VFileEvent event) {
+    if (event.getPath().endsWith("/" + ConversionOptions.RULES_FILE_NAME)) {
+      return true;
+    }
+    return event instanceof VFilePropertyChangeEvent && ((VFilePropertyChangeEvent) event).isRename()
+        && ConversionOptions.RULES_FILE_NAME.equals(((VFilePropertyChangeEvent) event).getNewValue());
+  }
+
+  private static boolean readTypeResolutionEnabled(final Path rulesFile) throws IOException {
+    if (!Files.isRegularFile(rulesFile)) {
+      return false;
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(rulesFile, UTF_8)) {
+      properties.load(reader);
+    }
+    return Boolean.parseBoolean(properties.getProperty(TYPE_RESOLUTION_KEY, "false").trim());
+  }
+
+  /**
+   * The project's libraries tell e.g. a Hamcrest assertion apart from a JUnit one. Null unless enabled, the jars
+   * are only read once the first name has to be looked up.
+   */
+  @Nullable
+  TypeResolution getTypeResolution() {
+    try {
+      if (!isTypeResolutionEnabled()) {
+        return null;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot read type resolution setting", e);
+    }
+    synchronized (typeResolutionLock) {
+      long librariesModification = ProjectRootManager.getInstance(project).getModificationCount();
+      CachedTypeResolution cached = typeResolution;
+      if (cached == null || cached.librariesModification != librariesModification) {
+        cached = new CachedTypeResolution(createTypeResolution(), librariesModification);
+        typeResolution = cached;
+      }
+      return cached.typeResolution;
+    }
+  }
+
+  // never blocks, null unless enabled and until a background thread has read the jars of the current libraries
+  @Nullable
+  TypeResolution getTypeResolutionIfReady() {
+    try {
+      if (!isTypeResolutionEnabled()) {
+        return null;
+      }
+    } catch (IOException e) {
+      LOGGER.warn("Cannot read type resolution setting", e);
+      return null;
+    }
+    CachedTypeResolution cached = typeResolution;
+    if (cached != null && cached.typeResolution.isLoaded()
+        && cached.librariesModification == ProjectRootManager.getInstance(project).getModificationCount()) {
+      return cached.typeResolution;
+    }
+    if (typeResolutionScheduled.compareAndSet(false, true)) {
+      ApplicationManager.getApplication().executeOnPooledThread(() -> {
+        try {
+          TypeResolution typeResolution = getTypeResolution();
+          if (typeResolution != null) {
+            typeResolution.load();
+          }
+        } catch (UncheckedIOException e) {
+          LOGGER.warn("Cannot resolve types against the project libraries", e);
+        } finally {
+          typeResolutionScheduled.set(false);
+        }
+      });
+    }
+    return null;
+  }
+
+  // the jars and class folders of the project's libraries, without the JDK
+  List<Path> getLibraries() {
+    return ReadAction.compute(() -> OrderEnumerator.orderEntries(project)
+        .withoutSdk()
+        .librariesOnly()
+        .getPathsList()
+        .getPathList()
+        .stream()
+        .map(Paths::get)
+        .collect(toList()));
+  }
+
+  private TypeResolution createTypeResolution() {
+    return TypeResolution.create(getLibraries());
+  }
+
+  private static final class CachedRules {
+
+    private final RewriteRules rules;
+    private final boolean typeResolutionEnabled;
+    private final long modification;
+
+    private CachedRules(final RewriteRules rules, final boolean typeResolutionEnabled, final long modification) {
+      this.rules = rules;
+      this.typeResolutionEnabled = typeResolutionEnabled;
+      this.modification = modification;
+    }
+  }
+
+  private static final class CachedTypeResolution {
+
+    private final TypeResolution typeResolution;
+    private final long librariesModification;
+
+    private CachedTypeResolution(final TypeResolution typeResolution, final long librariesModification) {
+      this.typeResolution = typeResolution;
+      this.librariesModification = librariesModification;
+    }
+  }
+}
@@ -0,0 +1,259 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hasher;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.MalformedInputException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.Arrays;
+import java.util.Objects;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Charset, byte order mark and line separator of a source file as it was read, so that a converted file is written
+ * back the way it was. Files which are not valid UTF-8 are read as ISO-8859-1, which maps every byte to a character
+ * and back, so text in an unknown 8-bit charset survives unchanged. Line breaks of the printer are written as the
+ * file's separator, files which already mix separators are written as printed.
+ * <p>
+ * Converted text is encoded in small chunks straight into a temporary file next to the source, which then replaces
+ * the source in one move. A conversion never leaves a half written file behind, and no encoded copy of the whole
+ * file is held in memory. Symbolic links are followed, the file they point to is replaced. If owner, group or access
+ * control list of the source cannot be carried over to the temporary file, the source is overwritten in place.
+ */
+final class SourceEncoding {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private final Charset charset;
+  private final byte[] byteOrderMark;
+  @Nullable
+  private final String lineSeparator;
+
+  private SourceEncoding(final Charset charset, final byte[] byteOrderMark, @Nullable final String lineSeparator) {
+    this.charset = charset;
+    this.byteOrderMark = byteOrderMark;
+    this.lineSeparator = lineSeparator;
+  }
+
+  static SourceEncoding detect(final byte[] content) {
+    if (startsWith(content, UTF_8_BOM)) {
+      return new SourceEncoding(UTF_8, UTF_8_BOM, lineSeparator(content));
+    }
+    return new SourceEncoding(isUtf8(content) ? UTF_8 : ISO_8859_1, new byte[0], lineSeparator(content));
+  }
+
+  String decode(final byte[] content) {
+    return new String(content, byteOrderMark.length, content.length - byteOrderMark.length, charset);
+  }
+
+  /**
+   * Replaces the file by the given text.
+   *
+   * @return the {@link ConversionIndex#hash(byte[]) hash} of the written bytes
+   */
+  String write(final Path path, final String text) throws IOException {
+    Path file = path.toRealPath();
+    Path directory = Objects.requireNonNull(file.getParent());
+    Path temporaryFile = Files.createTempFile(directory, "." + file.getFileName(), ".tmp");
+    try {
+      String hash;
+      try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+        hash = write(channel, text);
+      }
+      if (!copyAttributes(file, temporaryFile)) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+          return write(channel, text);
+        }
+      }
+      move(temporaryFile, file);
+      return hash;
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  private String write(final FileChannel channel, final String text) throws IOException {
+    Hasher hasher = ConversionIndex.hasher();
+    CharsetEncoder encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT);
+    ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    bytes.put(byteOrderMark);
+
+    int lineStart = 0;
+    int length = text.length();
+    for (int i = 0; i < length && lineSeparator != null; i++) {
+      char c = text.charAt(i);
+      if (c == '\n' || c == '\r') {
+        encode(encoder, CharBuffer.wrap(text, lineStart, i), bytes, channel, hasher);
+        encode(encoder, CharBuffer.wrap(lineSeparator), bytes, channel, hasher);
+        if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+          i++;
+        }
+        lineStart = i + 1;
+      }
+    }
+    encode(encoder, CharBuffer.wrap(text, lineStart, length), bytes, channel, hasher);
+    CoderResult result = encoder.encode(CharBuffer.allocate(0), bytes, true);
+    while (result.isOverflow()) {
+      flush(bytes, channel, hasher);
+      result = encoder.encode(CharBuffer.allocate(0), bytes, true);
+    }
+    while (encoder.flush(bytes).isOverflow()) {
+      flush(bytes, channel, hasher);
+    }
+    flush(bytes, channel, hasher);
+    return hasher.hash().toString();
+  }
+
+  private static void encode(final CharsetEncoder encoder, final CharBuffer chars, final ByteBuffer bytes,
+      final FileChannel channel, final Hasher hasher) throws IOException {
+    while (chars.hasRemaining()) {
+      CoderResult result = encoder.encode(chars, bytes, false);
+      if (result.isError()) {
+        result.throwException();
+      }
+      if (result.isOverflow()) {
+        flush(bytes, channel, hasher);
+      } else if (chars.hasRemaining()) {
+        // a high surrogate at the end of a line
+        throw new MalformedInputException(chars.remaining());
+      }
+    }
+  }
+
+  private static void flush(final ByteBuffer bytes, final FileChannel channel, final Hasher hasher)
+      throws IOException {
+    bytes.flip();
+    hasher.putBytes(bytes.duplicate());
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+    bytes.clear();
+  }
+
+  // false if the temporary file would replace the source with another owner, group or access control list
+  private static boolean copyAttributes(final Path source, final Path target) {
+    try {
+      PosixFileAttributeView posix = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+      if (posix != null) {
+        PosixFileAttributes attributes = posix.readAttributes();
+        PosixFileAttributeView targetPosix = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        PosixFileAttributes targetAttributes = targetPosix.readAttributes();
+        if (!attributes.owner().equals(targetAttributes.owner())) {
+          targetPosix.setOwner(attributes.owner());
+        }
+        if (!attributes.group().equals(targetAttributes.group())) {
+          targetPosix.setGroup(attributes.group());
+        }
+        targetPosix.setPermissions(attributes.permissions());
+      }
+      AclFileAttributeView acl = Files.getFileAttributeView(source, AclFileAttributeView.class);
+      if (acl != null) {
+        AclFileAttributeView targetAcl = Files.getFileAttributeView(target, AclFileAttributeView.class);
+        if (!acl.getOwner().equals(targetAcl.getOwner())) {
+          targetAcl.setOwner(acl.getOwner());
+        }
+        targetAcl.setAcl(acl.getAcl());
+      }
+      return true;
+    } catch (UnsupportedOperationException | IOException e) {
+      return false;
+    }
+  }
+
+  private static void move(final Path source, final Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  // null if the file mixes line separators, files without any line break get \n
+  @Nullable
+  static String lineSeparator(final byte[] content) {
+    String separator = null;
+    for (int i = 0; i < content.length; i++) {
+      String found;
+      if (content[i] == '\n') {
+        found = "\n";
+      } else if (content[i] == '\r') {
+        found = i + 1 < content.length && content[i + 1] == '\n' ? "\r\n" : "\r";
+        i += found.length() - 1;
+      } else {
+        continue;
+      }
+      if (separator != null && !separator.equals(found)) {
+        return null;
+      }
+      separator = found;
+    }
+    return separator == null ? "\n" : separator;
+  }
+
+  // strict, every byte sequence the decoder would replace makes the file ISO-8859-1
+  static boolean isUtf8(final byte[] content) {
+    int i = 0;
+    while (i < content.length) {
+      int lead = content[i] & 0xFF;
+      if (lead < 0x80) {
+        i++;
+        continue;
+      }
+      int continuationBytes;
+      int min = 0x80;
+      int max = 0xBF;
+      if (lead >= 0xC2 && lead <= 0xDF) {
+        continuationBytes = 1;
+      } else if (lead >= 0xE0 && lead <= 0xEF) {
+        continuationBytes = 2;
+        // no overlong encodings and no surrogates
+        min = lead == 0xE0 ? 0xA0 : min;
+        max = lead == 0xED ? 0x9F : max;
+      } else if (lead >= 0xF0 && lead <= 0xF4) {
+        continuationBytes = 3;
+        min = lead == 0xF0 ? 0x90 : min;
+        max = lead == 0xF4 ? 0x8F : max;
+      } else {
+        return false;
+      }
+      if (i + continuationBytes >= content.length) {
+        return false;
+      }
+      int second = content[i + 1] & 0xFF;
+      if (second < min || second > max) {
+        return false;
+      }
+      for (int k = 2; k <= continuationBytes; k++) {
+        if ((content[i + k] & 0xC0) != 0x80) {
+          return false;
+        }
+      }
+      i += continuationBytes + 1;
+    }
+    return true;
+  }
+
+  private static boolean startsWith(final byte[] content, final byte[] prefix) {
+    return content.length >= prefix.length && Arrays.equals(content, 0, prefix.length, prefix, 0, prefix.length);
+  }
+}
@@ -0,0 +1,41 @@
+package de.wlsc.junit.converter.plugin;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.function.Consumer;
+
+// walks the file system, used without an IDE; inside the IDE its indexes are queried instead
+final class TestFileDiscovery {
+
+  private TestFileDiscovery() {
+  }
+
+  // streams the files into the sink while walking, so no list of the whole tree is built up
+  static void find(final Path root, final DiscoveryFilter filter, final Runnable checkCanceled,
+      final Consumer<Path> sink) throws IOException {
+
+    Files.walkFileTree(root, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(final Path directory, final BasicFileAttributes attributes) {
+        checkCanceled.run();
+        Path name = directory.getFileName();
+        if (name != null && !directory.equals(root) && filter.isExcludedDirectory(name.toString())) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attributes) {
+        if (attributes.isRegularFile() && filter.isTestFile(file.getFileName().toString())) {
+          sink.accept(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -0,0 +1,79 @@
+package de.wlsc.junit.converter.plugin;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * A JUnit 4 class with one of every construct the visitor rewrites. Converting it a few times loads and compiles
+ * JavaParser, the printers and all paths of the visitor before the first real file has to wait for them.
+ */
+final class WarmUpSample {
+
+  private static final Path PATH = Paths.get("WarmUpTest.java");
+  private static final String SOURCE = String.join("\n",
+      "import static org.junit.Assert.assertEquals;",
+      "import static org.junit.Assume.assumeTrue;",
+      "",
+      "import java.io.File;",
+      "import org.junit.After;",
+      "import org.junit.Assert;",
+      "import org.junit.Before;",
+      "import org.junit.BeforeClass;",
+      "import org.junit.Ignore;",
+      "import org.junit.Rule;",
+      "import org.junit.Test;",
+      "import org.junit.rules.TemporaryFolder;",
+      "import org.junit.runner.RunWith;",
+      "import org.mockito.junit.MockitoJUnitRunner;",
+      "",
+      "@RunWith(MockitoJUnitRunner.class)",
+      "public class WarmUpTest {",
+      "",
+      "  @Rule",
+      "  public TemporaryFolder folder = new TemporaryFolder();",
+      "",
+      "  @BeforeClass",
+      "  public static void setUpClass() {",
+      "  }",
+      "",
+      "  @Before",
+      "  public void setUp() {",
+      "    assumeTrue(\"enabled\", true);",
+      "  }",
+      "",
+      "  @Test",
+      "  public void converts() throws Exception {",
+      "    File file = folder.newFile(\"file\");",
+      "    assertEquals(\"message\", file, file);",
+      "    Assert.assertTrue(file.exists());",
+      "  }",
+      "",
+      "  @Test(expected = IllegalStateException.class, timeout = 100L)",
+      "  public void fails() {",
+      "    throw new IllegalStateException();",
+      "  }",
+      "",
+      "  @Test",
+      "  @Ignore(\"reason\")",
+      "  public void ignored() {",
+      "  }",
+      "",
+      "  @After",
+      "  public void tearDown() {",
+      "  }",
+      "",
+      "  private static String helper(final String value) {",
+      "    return value.trim();",
+      "  }",
+      "}",
+      "");
+
+  private WarmUpSample() {
+  }
+
+  static void convert(final ConversionOptions options, final int iterations) {
+    for (int i = 0; i < iterations; i++) {
+      JUnit5Converter.INSTANCE.convertSource(PATH, SOURCE, options, new ConversionMetrics());
+    }
+  }
+}
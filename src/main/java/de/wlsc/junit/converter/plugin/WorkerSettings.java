@@ -0,0 +1,83 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether files on disk are converted in local worker processes instead of the IDE, so that a large tree
+ * does not compete with indexing for the IDE's heap and a pathological file cannot stall it. Off unless enabled in
+ * {@value ConversionOptions#RULES_FILE_NAME}:
+ * <pre>
+ * worker.processes=4     # worker JVMs converting in parallel, 0 converts inside the IDE
+ * worker.timeout=60000   # milliseconds a single file may take before its worker is stopped
+ * worker.heap=512m       # maximum heap of every worker
+ * </pre>
+ */
+final class WorkerSettings {
+
+  static final String KEY_PREFIX = "worker.";
+  private static final String PROCESSES_KEY = KEY_PREFIX + "processes";
+  private static final String TIMEOUT_KEY = KEY_PREFIX + "timeout";
+  private static final String HEAP_KEY = KEY_PREFIX + "heap";
+  private static final Pattern HEAP_SIZE = Pattern.compile("\\d+[kKmMgG]?");
+
+  private static final WorkerSettings DEFAULTS = new WorkerSettings(0, 60_000, "512m");
+
+  private final int processes;
+  private final long timeoutMillis;
+  private final String heap;
+
+  private WorkerSettings(final int processes, final long timeoutMillis, final String heap) {
+    this.processes = processes;
+    this.timeoutMillis = timeoutMillis;
+    this.heap = heap;
+  }
+
+  static WorkerSettings defaults() {
+    return DEFAULTS;
+  }
+
+  static WorkerSettings load(final Path configFile) throws IOException {
+    if (!Files.isRegularFile(configFile)) {
+      return DEFAULTS;
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(configFile, UTF_8)) {
+      properties.load(reader);
+    }
+    String processes = properties.getProperty(PROCESSES_KEY, String.valueOf(DEFAULTS.processes)).trim();
+    String timeout = properties.getProperty(TIMEOUT_KEY, String.valueOf(DEFAULTS.timeoutMillis)).trim();
+    String heap = properties.getProperty(HEAP_KEY, DEFAULTS.heap).trim();
+    try {
+      WorkerSettings settings = new WorkerSettings(Integer.parseInt(processes), Long.parseLong(timeout), heap);
+      if (settings.processes < 0 || settings.timeoutMillis < 1 || !HEAP_SIZE.matcher(heap).matches()) {
+        throw new IOException("Invalid worker settings in " + configFile);
+      }
+      return settings;
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid worker settings in " + configFile, e);
+    }
+  }
+
+  boolean isEnabled() {
+    return processes > 0;
+  }
+
+  int getProcesses() {
+    return processes;
+  }
+
+  long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  String getHeap() {
+    return heap;
+  }
+}
@@ -5,6 +5,11 @@ import static java.util.stream.Collectors.toCollection;
 import static org.apache.commons.lang3.StringUtils.join;
 import static org.apache.commons.lang3.StringUtils.splitByCharacterTypeCamelCase;
 
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.JavaToken;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.TokenRange;
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.Node;
@@ -27,54 +32,113 @@ import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.expr.NormalAnnotationExpr;
 import com.github.javaparser.ast.expr.SingleMemberAnnotationExpr;
 import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithModifiers;
 import com.github.javaparser.ast.stmt.BlockStmt;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
-import com.github.javaparser.ast.stmt.Statement;
 import com.github.javaparser.ast.type.Type;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import org.jetbrains.annotations.Nullable;
 
 public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
 
-  private static final ImmutableMap<String, String> MAPPERS = ImmutableMap.<String, String>builder()
-      // imports
-      .put("org.junit.Test", "org.junit.jupiter.api.Test")
-      .put("org.junit.Before", "org.junit.jupiter.api.BeforeEach")
-      .put("org.junit.BeforeClass", "org.junit.jupiter.api.BeforeAll")
-      .put("org.junit.After", "org.junit.jupiter.api.AfterEach")
-      .put("org.junit.AfterClass", "org.junit.jupiter.api.AfterAll")
-      .put("org.junit.Ignore", "org.junit.jupiter.api.Disabled")
-      .put("org.junit.Assume", "org.junit.jupiter.api.Assumptions")
-      .put("org.junit.Assume.assumeTrue", "org.junit.jupiter.api.Assumptions.assumeTrue")
-      .put("org.junit.Assume.assumeFalse", "org.junit.jupiter.api.Assumptions.assumeFalse")
-      .put("org.junit.Assert", "org.junit.jupiter.api.Assertions")
-      .put("org.junit.Assert.assertTrue", "org.junit.jupiter.api.Assertions.assertTrue")
-      .put("org.junit.Assert.assertFalse", "org.junit.jupiter.api.Assertions.assertFalse")
-      .put("org.junit.Assert.assertEquals", "org.junit.jupiter.api.Assertions.assertEquals")
-      .put("org.junit.Assert.assertNotEquals", "org.junit.jupiter.api.Assertions.assertNotEquals")
-      .put("org.junit.Assert.assertArrayEquals", "org.junit.jupiter.api.Assertions.assertArrayEquals")
-      .put("org.junit.Assert.assertNotNull", "org.junit.jupiter.api.Assertions.assertNotNull")
-      .put("org.junit.Assert.assertNull", "org.junit.jupiter.api.Assertions.assertNull")
-      .put("org.junit.Assert.assertSame", "org.junit.jupiter.api.Assertions.assertSame")
-      .put("org.junit.Assert.assertNotSame", "org.junit.jupiter.api.Assertions.assertNotSame")
-      .put("org.junit.rules.TemporaryFolder", "org.junit.jupiter.api.io.TempDir")
-      // spring specific
-      .put("org.springframework.test.context.junit4.SpringRunner",
-          "org.springframework.test.context.junit.jupiter.SpringExtension")
-      .put("org.springframework.test.context.junit4.SpringJUnit4ClassRunner",
-          "org.springframework.test.context.junit.jupiter.SpringExtension")
-      // mockito specific
-      .put("org.mockito.junit.MockitoJUnitRunner", "org.mockito.junit.jupiter.MockitoExtension")
-      // annotations
-      .put("Before", "BeforeEach")
-      .put("BeforeClass", "BeforeAll")
-      .put("After", "AfterEach")
-      .put("AfterClass", "AfterAll")
+  // method annotations are classified in a single pass, the flags are combined bitwise
+  private static final int LIFECYCLE = 1;
+  private static final int TEST = 1 << 1;
+  private static final int DISPLAY_NAME = 1 << 2;
+  private static final ImmutableMap<String, Integer> METHOD_ANNOTATION_FLAGS = ImmutableMap.<String, Integer>builder()
+      .put("Test", LIFECYCLE | TEST)
+      .put("ParameterizedTest", TEST)
+      .put("Before", LIFECYCLE)
+      .put("BeforeEach", LIFECYCLE)
+      .put("BeforeClass", LIFECYCLE)
+      .put("BeforeAll", LIFECYCLE)
+      .put("After", LIFECYCLE)
+      .put("AfterEach", LIFECYCLE)
+      .put("AfterClass", LIFECYCLE)
+      .put("AfterAll", LIFECYCLE)
+      .put("DisplayName", DISPLAY_NAME)
       .build();
 
+  // assertion methods whose optional message argument moves from the first to the last position
+  private static final ImmutableMap<String, String> MESSAGE_ARGUMENT_OWNERS = ImmutableMap.<String, String>builder()
+      .put("assumeTrue", "Assumptions")
+      .put("assumeFalse", "Assumptions")
+      .put("assertTrue", "Assertions")
+      .put("assertFalse", "Assertions")
+      .put("assertNotNull", "Assertions")
+      .put("assertArrayEquals", "Assertions")
+      .put("assertEquals", "Assertions")
+      .put("assertNotEquals", "Assertions")
+      .build();
+  // the other ones compare two values, e.g. assertEquals("a", b) has no message
+  private static final ImmutableSet<String> CONDITION_ASSERTIONS = ImmutableSet.of("assumeTrue", "assumeFalse",
+      "assertTrue", "assertFalse", "assertNotNull");
+
+  // only calls on these types or without a scope are JUnit 4 assertions, e.g. softly.assertEquals is not
+  private static final ImmutableSet<String> ASSERTION_SCOPES = ImmutableSet.of("Assert", "Assume",
+      "org.junit.Assert", "org.junit.Assume");
+
+  // JUnit 4 annotations without a Jupiter counterpart to import, their imports go once no annotation uses them
+  private static final ImmutableSet<String> REPLACED_ANNOTATION_IMPORTS = ImmutableSet.of("org.junit.Rule",
+      "org.junit.ClassRule", "org.junit.runner.RunWith");
+
+  // annotations rewritten by their simple name, type resolution keeps foreign ones with the same name
+  private static final ImmutableSet<String> RESOLVED_ANNOTATIONS = ImmutableSet.of("Test", "Before", "BeforeClass",
+      "After", "AfterClass", "Ignore", "RunWith", "Rule");
+
+  private final RewriteRules rules;
+  @Nullable
+  private final TypeResolution types;
+  // nodes which resolved to a type outside of JUnit, compared by identity
+  private final Set<Node> foreignNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final int[] firedRewrites = new int[Rewrite.values().length];
+  // collected while visiting and added once afterwards, every addImport scans all imports of the file
+  private final Map<String, Boolean> requiredImports = new LinkedHashMap<>();
+
+  public JUnit4Visitor() {
+    this(RewriteRules.defaults());
+  }
+
+  public JUnit4Visitor(final RewriteRules rules) {
+    this(rules, null);
+  }
+
+  public JUnit4Visitor(final RewriteRules rules, @Nullable final TypeResolution types) {
+    this.rules = rules;
+    this.types = types;
+  }
+
+  public Map<Rewrite, Integer> getFiredRewrites() {
+    Map<Rewrite, Integer> fired = new EnumMap<>(Rewrite.class);
+    for (Rewrite rewrite : Rewrite.values()) {
+      if (firedRewrites[rewrite.ordinal()] > 0) {
+        fired.put(rewrite, firedRewrites[rewrite.ordinal()]);
+      }
+    }
+    return fired;
+  }
+
+  @Override
+  public void visit(final CompilationUnit unit, final Void arg) {
+    findForeignReferences(unit);
+    super.visit(unit, arg);
+    removeUnusedImports(unit);
+    addRequiredImports(unit);
+  }
+
   @Override
   public void visit(final ImportDeclaration importDeclaration, final Void arg) {
     replaceImportIfPresent(importDeclaration);
@@ -103,8 +167,7 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
 
   @Override
   public void visit(final SingleMemberAnnotationExpr singleMemberAnnotationExpr, final Void arg) {
-    replaceMockitoRunner(singleMemberAnnotationExpr);
-    replaceSpringRunner(singleMemberAnnotationExpr);
+    replaceRunnerIfPresent(singleMemberAnnotationExpr);
     replaceAnnotationNameIfPresent(singleMemberAnnotationExpr);
     replaceIgnoreWithParameterIfPresent(singleMemberAnnotationExpr);
     super.visit(singleMemberAnnotationExpr, arg);
@@ -125,8 +188,9 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
 
   @Override
   public void visit(final MethodDeclaration methodDeclaration, final Void arg) {
-    setMethodPackagePrivate(methodDeclaration);
-    generateDisplayNameIfTestMethod(methodDeclaration);
+    int annotationFlags = classifyAnnotations(methodDeclaration.getAnnotations());
+    setMethodPackagePrivate(methodDeclaration, annotationFlags);
+    generateDisplayNameIfTestMethod(methodDeclaration, annotationFlags);
     super.visit(methodDeclaration, arg);
   }
 
@@ -136,32 +200,141 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
     super.visit(variableDeclarator, arg);
   }
 
-  private void setClassPackagePrivate(final ClassOrInterfaceDeclaration classOrInterfaceDeclaration) {
-    NodeList<Modifier> newModifiers = classOrInterfaceDeclaration.getModifiers()
-        .stream()
-        .filter(modifier -> modifier.getKeyword() != PUBLIC)
-        .collect(toCollection(NodeList::new));
-    classOrInterfaceDeclaration.setModifiers(newModifiers);
-  }
-
-  private void setMethodPackagePrivate(final MethodDeclaration method) {
-    if (!method.isAnnotationPresent("Test") &&
-        !method.isAnnotationPresent("Before") &&
-        !method.isAnnotationPresent("BeforeEach") &&
-        !method.isAnnotationPresent("BeforeClass") &&
-        !method.isAnnotationPresent("BeforeAll") &&
-        !method.isAnnotationPresent("After") &&
-        !method.isAnnotationPresent("AfterEach") &&
-        !method.isAnnotationPresent("AfterClass") &&
-        !method.isAnnotationPresent("AfterAll")) {
+  private void fired(final Rewrite rewrite) {
+    firedRewrites[rewrite.ordinal()]++;
+  }
+
+  // has to run before any import is rewritten, the original imports decide what a name refers to
+  private void findForeignReferences(final CompilationUnit unit) {
+    if (types == null) {
+      return;
+    }
+    unit.findAll(AnnotationExpr.class, annotation -> RESOLVED_ANNOTATIONS.contains(annotation.getNameAsString())
+        && types.isForeign(unit, annotation))
+        .forEach(foreignNodes::add);
+    unit.findAll(MethodCallExpr.class, call -> MESSAGE_ARGUMENT_OWNERS.containsKey(call.getNameAsString())
+        && types.isForeign(unit, call))
+        .forEach(foreignNodes::add);
+  }
+
+  private void removeUnusedImports(final CompilationUnit unit) {
+    if (unit.getImports().stream().noneMatch(this::isReplacedAnnotationImport)) {
       return;
     }
+    Set<String> annotationNames = unit.findAll(AnnotationExpr.class).stream()
+        .map(AnnotationExpr::getNameAsString)
+        .collect(Collectors.toSet());
+    NodeList<ImportDeclaration> imports = unit.getImports();
+    for (int index = imports.size() - 1; index >= 0; index--) {
+      ImportDeclaration importDeclaration = imports.get(index);
+      if (!isReplacedAnnotationImport(importDeclaration)
+          || annotationNames.contains(RewriteRules.simpleName(importDeclaration.getNameAsString()))) {
+        continue;
+      }
+      if (index > 0 && index == imports.size() - 1) {
+        // the lexical printer removes the blank line behind the last import along with it, the previous import
+        // takes its place instead
+        ImportDeclaration previous = imports.get(index - 1);
+        imports.remove(index - 1);
+        imports.set(index - 1, previous);
+      } else {
+        imports.remove(index);
+      }
+    }
+  }
 
-    NodeList<Modifier> newModifiers = method.getModifiers()
+  private boolean isReplacedAnnotationImport(final ImportDeclaration importDeclaration) {
+    return !importDeclaration.isStatic() && !importDeclaration.isAsterisk()
+        && REPLACED_ANNOTATION_IMPORTS.contains(importDeclaration.getNameAsString());
+  }
+
+  // each import goes in front of the first one of its kind sorting after it, so sorted imports stay sorted
+  private void addRequiredImports(final CompilationUnit unit) {
+    NodeList<ImportDeclaration> imports = unit.getImports();
+    requiredImports.forEach((name, isStatic) -> {
+      if (imports.stream().anyMatch(existing -> isImported(existing, name, isStatic))) {
+        return;
+      }
+      // without imports of its kind, static imports go first
+      int position = isStatic ? 0 : imports.size();
+      for (int index = 0; index < imports.size(); index++) {
+        ImportDeclaration existing = imports.get(index);
+        if (existing.isStatic() == isStatic) {
+          if (existing.getNameAsString().compareTo(name) > 0) {
+            position = index;
+            break;
+          }
+          position = index + 1;
+        }
+      }
+      ImportDeclaration newImport = new ImportDeclaration(name, isStatic, false);
+      if (position < imports.size() && (position == 0 || imports.get(position).isStatic() == isStatic)) {
+        // the lexical printer inserts behind the line break of the previous import, a blank line in front of the
+        // next one stays in place only when the new import takes its place
+        ImportDeclaration next = imports.get(position);
+        imports.set(position, newImport);
+        imports.add(position + 1, next);
+      } else {
+        imports.add(position, newImport);
+      }
+    });
+    requiredImports.clear();
+  }
+
+  private static boolean isImported(final ImportDeclaration existing, final String name, final boolean isStatic) {
+    if (existing.isStatic() != isStatic) {
+      return false;
+    }
+    String existingName = existing.getNameAsString();
+    return existing.isAsterisk()
+        ? name.startsWith(existingName) && name.lastIndexOf('.') == existingName.length()
+        : existingName.equals(name);
+  }
+
+  private void requireImport(final String name) {
+    requiredImports.putIfAbsent(name, false);
+  }
+
+  private void requireStaticImport(final String name) {
+    requiredImports.putIfAbsent(name, true);
+  }
+
+  private boolean isJUnit(final Node node) {
+    return !foreignNodes.contains(node);
+  }
+
+  private void setClassPackagePrivate(final ClassOrInterfaceDeclaration classOrInterfaceDeclaration) {
+    removePublicModifier(classOrInterfaceDeclaration);
+  }
+
+  private void removePublicModifier(final NodeWithModifiers<?> node) {
+    if (!node.hasModifier(PUBLIC)) {
+      return;
+    }
+    NodeList<Modifier> newModifiers = node.getModifiers()
         .stream()
         .filter(modifier -> modifier.getKeyword() != PUBLIC)
         .collect(toCollection(NodeList::new));
-    method.setModifiers(newModifiers);
+    node.setModifiers(newModifiers);
+    fired(Rewrite.PACKAGE_PRIVATE);
+  }
+
+  private int classifyAnnotations(final NodeList<AnnotationExpr> annotations) {
+    int flags = 0;
+    for (int i = 0; i < annotations.size(); i++) {
+      Integer flag = METHOD_ANNOTATION_FLAGS.get(annotations.get(i).getNameAsString());
+      if (flag != null && isJUnit(annotations.get(i))) {
+        flags |= flag;
+      }
+    }
+    return flags;
+  }
+
+  private void setMethodPackagePrivate(final MethodDeclaration method, final int annotationFlags) {
+    if ((annotationFlags & LIFECYCLE) == 0) {
+      return;
+    }
+    removePublicModifier(method);
   }
 
   private void replaceTmpFolderFileCreationIfPresent(final VariableDeclarator variableDeclarator) {
@@ -175,16 +348,13 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
         .ifPresent(this::replaceTmpFolderFileCreation);
   }
 
+  // the call is changed and moved instead of cloned, the layout preserving printer loses the edits of clones
   private void replaceTmpFolderFileCreation(final MethodCallExpr methodCallExpr) {
-    MethodCallExpr resolveExpression = methodCallExpr.clone()
-        .setName("resolve");
-
-    MethodCallExpr toFileExpression = methodCallExpr.clone()
-        .setName("toFile")
-        .setArguments(new NodeList<>())
-        .setScope(resolveExpression);
-
+    MethodCallExpr toFileExpression = new MethodCallExpr("toFile");
+    methodCallExpr.setName("resolve");
     methodCallExpr.replace(toFileExpression);
+    toFileExpression.setScope(methodCallExpr);
+    fired(Rewrite.TEMPORARY_FOLDER);
   }
 
   private void replaceTemporaryFolderFieldIfPresent(final FieldDeclaration fieldDeclaration) {
@@ -195,18 +365,18 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
         .filter("TemporaryFolder"::equals)
         .findFirst()
         .flatMap(s -> fieldDeclaration.getAnnotationByName("Rule"))
+        .filter(this::isJUnit)
         .ifPresent(annotationExpr -> replaceTemporaryFolder(fieldDeclaration, annotationExpr));
   }
 
   private void replaceTemporaryFolder(final FieldDeclaration fieldDeclaration, final AnnotationExpr annotationExpr) {
     annotationExpr.replace(new MarkerAnnotationExpr("TempDir"));
-    VariableDeclarator variableDeclarator = new VariableDeclarator();
-    variableDeclarator.setType("Path");
-    variableDeclarator.setName(fieldDeclaration.getVariable(0).getName());
-    fieldDeclaration.setVariable(0, variableDeclarator);
+    fieldDeclaration.getVariable(0)
+        .setType("Path")
+        .removeInitializer();
+    fired(Rewrite.TEMPORARY_FOLDER);
 
-    fieldDeclaration.findCompilationUnit()
-        .ifPresent(unit -> unit.addImport("java.nio.file.Path"));
+    requireImport("java.nio.file.Path");
   }
 
   private void generateDisplayNameAnnotationIfNotExist(final ClassOrInterfaceDeclaration classDeclaration) {
@@ -216,48 +386,40 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
 
     SingleMemberAnnotationExpr displayName = createCapitalizedDisplayNameBy(classDeclaration.getNameAsString());
     classDeclaration.addAnnotation(displayName);
+    fired(Rewrite.DISPLAY_NAME);
 
-    classDeclaration.findCompilationUnit()
-        .ifPresent(unit -> unit.addImport("org.junit.jupiter.api.DisplayName"));
-  }
-
-  private void replaceMockitoRunner(final SingleMemberAnnotationExpr singleMemberAnnotationExpr) {
-    replaceRunWithAnnotation(singleMemberAnnotationExpr, "MockitoExtension.class",
-        "MockitoJUnitRunner"::equals);
+    requireImport("org.junit.jupiter.api.DisplayName");
   }
 
-  private void replaceSpringRunner(final SingleMemberAnnotationExpr singleMemberAnnotationExpr) {
-    replaceRunWithAnnotation(singleMemberAnnotationExpr, "SpringExtension.class",
-        className -> "SpringRunner".equals(className) || "SpringJUnit4ClassRunner".equals(className));
-  }
-
-  private void replaceRunWithAnnotation(final SingleMemberAnnotationExpr annotationExpr,
-      final String newClassValue, final Predicate<String> predicate) {
+  private void replaceRunnerIfPresent(final SingleMemberAnnotationExpr annotationExpr) {
 
     Stream.of(annotationExpr)
         .filter(expr -> "RunWith".equals(expr.getNameAsString()))
-        .filter(expr -> predicate.test(expr.getMemberValue().asClassExpr().getType().asString()))
-        .map(expr -> newClassValue)
+        .filter(this::isJUnit)
+        .map(SingleMemberAnnotationExpr::getMemberValue)
+        .filter(Expression::isClassExpr)
+        .map(expr -> rules.extensionForRunner(expr.asClassExpr().getType().asString()))
+        .filter(Objects::nonNull)
+        .map(extension -> extension + ".class")
         .map(NameExpr::new)
         .map(clazzName -> new SingleMemberAnnotationExpr(new Name("ExtendWith"), clazzName))
-        .forEach(annotationExpr::replace);
-
-    annotationExpr.findCompilationUnit()
-        .ifPresent(unit -> unit.addImport("org.junit.jupiter.api.extension.ExtendWith"));
+        .forEach(extendWith -> {
+          annotationExpr.replace(extendWith);
+          fired(Rewrite.RUNNER);
+          requireImport("org.junit.jupiter.api.extension.ExtendWith");
+        });
   }
 
-  private void generateDisplayNameIfTestMethod(final MethodDeclaration methodDeclaration) {
-    if (methodDeclaration.getAnnotationByName("DisplayName").isPresent() ||
-        (methodDeclaration.getAnnotationByName("Test").isEmpty() &&
-            methodDeclaration.getAnnotationByName("ParameterizedTest").isEmpty())) {
+  private void generateDisplayNameIfTestMethod(final MethodDeclaration methodDeclaration, final int annotationFlags) {
+    if ((annotationFlags & DISPLAY_NAME) != 0 || (annotationFlags & TEST) == 0) {
       return;
     }
 
     String methodName = methodDeclaration.getName().asString();
     methodDeclaration.addAnnotation(createCapitalizedDisplayNameBy(methodName));
+    fired(Rewrite.DISPLAY_NAME);
 
-    methodDeclaration.findCompilationUnit()
-        .ifPresent(unit -> unit.addImport("org.junit.jupiter.api.DisplayName"));
+    requireImport("org.junit.jupiter.api.DisplayName");
   }
 
   private SingleMemberAnnotationExpr createCapitalizedDisplayNameBy(final String methodName) {
@@ -276,95 +438,117 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
 
   private void moveMessageArgumentIfPresent(final MethodCallExpr methodCallExpr) {
 
-    if (methodCallExpr.getArguments().size() < 1) {
+    if (methodCallExpr.getArguments().size() < 1 || !isJUnit(methodCallExpr)
+        || !methodCallExpr.getScope().map(scope -> ASSERTION_SCOPES.contains(scope.toString())).orElse(true)) {
       return;
     }
 
-    String methodName = methodCallExpr.getNameAsString();
-
-    if ("assumeTrue".equals(methodName) || "assumeFalse".equals(methodName)) {
-      pushFirstAsLastArgument(methodCallExpr, "Assumptions");
-    }
-
-    if ("assertTrue".equals(methodName) || "assertFalse".equals(methodName) || "assertNotNull".equals(methodName) ||
-        "assertArrayEquals".equals(methodName) || "assertEquals".equals(methodName) ||
-        "assertNotEquals".equals(methodName)) {
-      pushFirstAsLastArgument(methodCallExpr, "Assertions");
+    String newPrefixName = MESSAGE_ARGUMENT_OWNERS.get(methodCallExpr.getNameAsString());
+    if (newPrefixName != null) {
+      pushFirstAsLastArgument(methodCallExpr, newPrefixName);
     }
   }
 
   private void pushFirstAsLastArgument(final MethodCallExpr methodCallExpr, final String newPrefixName) {
     NodeList<Expression> arguments = methodCallExpr.getArguments();
 
-    if (arguments.get(0).isStringLiteralExpr()) {
-      arguments.add(arguments.get(0));
-      arguments.remove(0);
+    int argumentsWithoutMessage = CONDITION_ASSERTIONS.contains(methodCallExpr.getNameAsString()) ? 1 : 2;
+    if (arguments.size() > argumentsWithoutMessage && arguments.get(0).isStringLiteralExpr()) {
+      Expression message = arguments.remove(0);
+      arguments.add(message);
+      fired(Rewrite.MESSAGE_ARGUMENT);
     }
 
     methodCallExpr.getScope()
-        .ifPresent(expression -> methodCallExpr.setScope(new NameExpr(newPrefixName)));
+        .ifPresent(expression -> {
+          methodCallExpr.setScope(new NameExpr(newPrefixName));
+          fired(Rewrite.ASSERTION_SCOPE);
+        });
   }
 
   private void replaceIgnoreIfPresent(final MarkerAnnotationExpr markerAnnotationExpr) {
     Stream.of(markerAnnotationExpr)
         .filter(expr -> "Ignore".equals(expr.getNameAsString()))
+        .filter(this::isJUnit)
         .map(expr -> new Name("Disabled"))
         .map(MarkerAnnotationExpr::new)
-        .forEach(markerAnnotationExpr::replace);
+        .forEach(disabled -> {
+          markerAnnotationExpr.replace(disabled);
+          fired(Rewrite.IGNORE);
+        });
   }
 
   private void replaceIgnoreWithParameterIfPresent(final SingleMemberAnnotationExpr singleMemberAnnotationExpr) {
     Stream.of(singleMemberAnnotationExpr)
         .filter(expr -> "Ignore".equals(expr.getNameAsString()))
+        .filter(this::isJUnit)
         .map(SingleMemberAnnotationExpr::getMemberValue)
         .map(Expression::asStringLiteralExpr)
         .map(LiteralStringValueExpr::getValue)
         .map(StringLiteralExpr::new)
         .map(value -> new SingleMemberAnnotationExpr(new Name("Disabled"), value))
-        .forEach(singleMemberAnnotationExpr::replace);
+        .forEach(disabled -> {
+          singleMemberAnnotationExpr.replace(disabled);
+          fired(Rewrite.IGNORE);
+        });
   }
 
   private void replaceTestIfPresent(final NormalAnnotationExpr normalAnnotationExpr) {
-    if (!"Test".equals(normalAnnotationExpr.getNameAsString())) {
+    if (!"Test".equals(normalAnnotationExpr.getNameAsString()) || !isJUnit(normalAnnotationExpr)) {
       return;
     }
-    normalAnnotationExpr.getParentNode().ifPresent(node -> {
-      for (MemberValuePair pair : normalAnnotationExpr.getPairs()) {
-        for (Node childNode : node.getChildNodes()) {
-          if (childNode instanceof BlockStmt) {
-            String identifier = pair.getName().asString();
-            if ("timeout".equals(identifier)) {
-              wrapWithAssertTimeout((BlockStmt) childNode, pair.getValue());
-              normalAnnotationExpr.findCompilationUnit().ifPresent(unit -> {
-                unit.addImport("java.time.Duration.ofMillis", true, false);
-                unit.addImport("org.junit.jupiter.api.Assertions.assertTimeout", true, false);
-              });
-              return;
-            }
-            if ("expected".equals(identifier)) {
-              wrapWithExpected((BlockStmt) childNode, pair.getValue());
-              normalAnnotationExpr.findCompilationUnit()
-                  .ifPresent(unit -> unit.addImport("org.junit.jupiter.api.Assertions.assertThrows", true, false));
-              return;
-            }
-          }
-        }
-      }
-    });
+    normalAnnotationExpr.getParentNode()
+        .filter(MethodDeclaration.class::isInstance)
+        .map(MethodDeclaration.class::cast)
+        .filter(methodDeclaration -> methodDeclaration.getBody().isPresent())
+        .ifPresent(methodDeclaration -> {
+          memberValue(normalAnnotationExpr, "expected").ifPresent(value -> {
+            wrapWithExpected(methodDeclaration.getBody().get(), value);
+            fired(Rewrite.TEST_EXPECTED);
+            requireStaticImport("org.junit.jupiter.api.Assertions.assertThrows");
+          });
+          // the expected exception has to be thrown in time as well, so assertTimeout wraps assertThrows
+          memberValue(normalAnnotationExpr, "timeout").ifPresent(value -> {
+            wrapWithAssertTimeout(methodDeclaration.getBody().get(), value);
+            fired(Rewrite.TEST_TIMEOUT);
+            requireStaticImport("java.time.Duration.ofMillis");
+            requireStaticImport("org.junit.jupiter.api.Assertions.assertTimeout");
+          });
+        });
     normalAnnotationExpr.replace(new MarkerAnnotationExpr(new Name("Test")));
   }
 
+  private static Optional<Expression> memberValue(final NormalAnnotationExpr annotationExpr, final String name) {
+    return annotationExpr.getPairs().stream()
+        .filter(pair -> name.equals(pair.getNameAsString()))
+        .map(MemberValuePair::getValue)
+        .findFirst();
+  }
+
   private void replaceImportIfPresent(final ImportDeclaration importDeclaration) {
-    Optional.ofNullable(MAPPERS.get(importDeclaration.getNameAsString()))
-        .map(name -> new ImportDeclaration(name, importDeclaration.isStatic(), false))
-        .ifPresent(importDeclaration::replace);
+    Optional.ofNullable(rules.mapImport(importDeclaration.getNameAsString()))
+        .map(name -> new ImportDeclaration(name, importDeclaration.isStatic(), importDeclaration.isAsterisk()))
+        .ifPresent(newImport -> {
+          importDeclaration.replace(newImport);
+          fired(Rewrite.IMPORT);
+        });
   }
 
   private void replaceAnnotationNameIfPresent(final AnnotationExpr annotationExpr) {
-    Optional.ofNullable(MAPPERS.get(annotationExpr.getNameAsString()))
-        .map(Name::new)
-        .map(MarkerAnnotationExpr::new)
-        .ifPresent(annotationExpr::replace);
+    if (!isJUnit(annotationExpr)) {
+      return;
+    }
+    String name = annotationExpr.getNameAsString();
+    String newName = rules.mapAnnotation(name);
+    if (newName == null) {
+      return;
+    }
+    if (name.indexOf('.') < 0) {
+      requireImport(newName);
+      newName = RewriteRules.simpleName(newName);
+    }
+    annotationExpr.replace(new MarkerAnnotationExpr(new Name(newName)));
+    fired(Rewrite.ANNOTATION);
   }
 
   private void wrapWithAssertTimeout(final BlockStmt oldBlockStmt, final Expression annotationValue) {
@@ -382,17 +566,84 @@ public class JUnit4Visitor extends VoidVisitorAdapter<Void> {
   private void exchangeOldBodyWithNewBodyStatement(final BlockStmt oldBlockStmt, Expression expression,
       String methodName) {
 
-    MethodCallExpr methodCallExpression = new MethodCallExpr(methodName, expression,
-        new LambdaExpr(new NodeList<>(), oldBlockStmt.clone()));
-    Statement statement = new ExpressionStmt(methodCallExpression);
-    BlockStmt newBlockStmt = new BlockStmt();
-    newBlockStmt.setStatements(new NodeList<>(statement));
-
     oldBlockStmt.getParentNode()
         .map(MethodDeclaration.class::cast)
         .ifPresent(methodDeclaration -> {
+          BlockStmt newBlockStmt = null;
+          if (oldBlockStmt.containsData(LexicalPreservingPrinter.NODE_TEXT_DATA)) {
+            newBlockStmt = wrapPreservingLayout(methodDeclaration, oldBlockStmt, expression + ", () -> ", methodName);
+          }
+          if (newBlockStmt == null) {
+            MethodCallExpr methodCallExpression = new MethodCallExpr(methodName, expression,
+                new LambdaExpr(new NodeList<>(), oldBlockStmt.clone()));
+            newBlockStmt = new BlockStmt(new NodeList<>(new ExpressionStmt(methodCallExpression)));
+          }
           methodDeclaration.setThrownExceptions(new NodeList<>());
           methodDeclaration.setBody(newBlockStmt);
         });
   }
+
+  // the lexical printer prints new nodes in its own layout, so the old body is indented one level as text and
+  // parsed again, the result prints verbatim with the comments and line separators of the file
+  @Nullable
+  private static BlockStmt wrapPreservingLayout(final MethodDeclaration methodDeclaration,
+      final BlockStmt oldBlockStmt, final String arguments, final String methodName) {
+
+    String[] lines = LexicalPreservingPrinter.print(oldBlockStmt).split("(?<=\n)");
+    String lastLine = lines[lines.length - 1];
+    String closing = lines.length > 1 && "}".equals(lastLine.strip())
+        ? indentation(lastLine)
+        : " ".repeat(methodDeclaration.getBegin().map(begin -> begin.column - 1).orElse(0));
+    String unit = indentationUnit(methodDeclaration, lines, closing);
+    String lineSeparator = lineSeparator(methodDeclaration);
+
+    StringBuilder text = new StringBuilder("{").append(lineSeparator)
+        .append(closing).append(unit).append(methodName).append('(').append(arguments);
+    for (int i = 0; i < lines.length; i++) {
+      text.append(i == 0 || lines[i].isBlank() ? "" : unit).append(lines[i]);
+    }
+    text.append(");").append(lineSeparator).append(closing).append('}');
+
+    Optional<BlockStmt> block = new JavaParser(new ParserConfiguration().setAttributeComments(false))
+        .parseBlock(text.toString())
+        .getResult();
+    block.ifPresent(LexicalPreservingPrinter::setup);
+    return block.orElse(null);
+  }
+
+  private static String indentationUnit(final MethodDeclaration methodDeclaration, final String[] lines,
+      final String closing) {
+
+    for (int i = 1; i < lines.length - 1; i++) {
+      String indentation = indentation(lines[i]);
+      if (!lines[i].isBlank() && indentation.length() > closing.length() && indentation.startsWith(closing)) {
+        return indentation.substring(closing.length());
+      }
+    }
+    if (closing.contains("\t")) {
+      return "\t";
+    }
+    int typeColumn = methodDeclaration.getParentNode()
+        .flatMap(Node::getBegin)
+        .map(begin -> begin.column)
+        .orElse(1);
+    int memberColumn = methodDeclaration.getBegin().map(begin -> begin.column).orElse(1);
+    return " ".repeat(memberColumn > typeColumn ? memberColumn - typeColumn : 2);
+  }
+
+  private static String indentation(final String line) {
+    return line.substring(0, line.length() - line.stripLeading().length());
+  }
+
+  private static String lineSeparator(final MethodDeclaration methodDeclaration) {
+    Optional<TokenRange> tokens = methodDeclaration.getTokenRange();
+    if (tokens.isPresent()) {
+      for (JavaToken token : tokens.get()) {
+        if (token.getCategory().isEndOfLine()) {
+          return token.getText();
+        }
+      }
+    }
+    return "\n";
+  }
 }
@@ -0,0 +1,18 @@
+package de.wlsc.junit.converter.plugin.visitor;
+
+/**
+ * Kinds of rewrites {@link JUnit4Visitor} applies, used for conversion statistics.
+ */
+public enum Rewrite {
+  IMPORT,
+  ANNOTATION,
+  RUNNER,
+  IGNORE,
+  TEST_TIMEOUT,
+  TEST_EXPECTED,
+  MESSAGE_ARGUMENT,
+  ASSERTION_SCOPE,
+  TEMPORARY_FOLDER,
+  DISPLAY_NAME,
+  PACKAGE_PRIVATE
+}
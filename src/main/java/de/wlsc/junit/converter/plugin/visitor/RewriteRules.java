@@ -0,0 +1,247 @@
+package de.wlsc.junit.converter.plugin.visitor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Mappings applied by {@link JUnit4Visitor}, indexed per node type. The built-in JUnit 4, Spring and Mockito
+ * rules can be extended by a properties file with the following keys:
+ * <pre>
+ * import.org.acme.OldRule=org.acme.NewExtension   # exact import / fully qualified name
+ * package.org.acme.junit4=org.acme.junit5          # every name below a package
+ * annotation.AcmeBefore=BeforeEach                 # annotation name, a target without package is a Jupiter one
+ * runner.org.acme.AcmeRunner=org.acme.AcmeExtension # @RunWith(runner) becomes @ExtendWith(extension)
+ * </pre>
+ */
+public final class RewriteRules {
+
+  private static final String IMPORT_PREFIX = "import.";
+  private static final String PACKAGE_PREFIX = "package.";
+  private static final String ANNOTATION_PREFIX = "annotation.";
+  private static final String RUNNER_PREFIX = "runner.";
+  // the same file configures test file discovery, type resolution and worker processes, which are not rewrite rules
+  private static final String DISCOVERY_PREFIX = "discovery.";
+  private static final String RESOLUTION_PREFIX = "resolution.";
+  private static final String WORKER_PREFIX = "worker.";
+  private static final String JUPITER_PACKAGE = "org.junit.jupiter.api.";
+
+  private static final ImmutableMap<String, String> DEFAULT_IMPORTS = ImmutableMap.<String, String>builder()
+      .put("org.junit.Test", "org.junit.jupiter.api.Test")
+      .put("org.junit.Before", "org.junit.jupiter.api.BeforeEach")
+      .put("org.junit.BeforeClass", "org.junit.jupiter.api.BeforeAll")
+      .put("org.junit.After", "org.junit.jupiter.api.AfterEach")
+      .put("org.junit.AfterClass", "org.junit.jupiter.api.AfterAll")
+      .put("org.junit.Ignore", "org.junit.jupiter.api.Disabled")
+      .put("org.junit.Assume", "org.junit.jupiter.api.Assumptions")
+      .put("org.junit.Assume.assumeTrue", "org.junit.jupiter.api.Assumptions.assumeTrue")
+      .put("org.junit.Assume.assumeFalse", "org.junit.jupiter.api.Assumptions.assumeFalse")
+      .put("org.junit.Assert", "org.junit.jupiter.api.Assertions")
+      .put("org.junit.Assert.assertTrue", "org.junit.jupiter.api.Assertions.assertTrue")
+      .put("org.junit.Assert.assertFalse", "org.junit.jupiter.api.Assertions.assertFalse")
+      .put("org.junit.Assert.assertEquals", "org.junit.jupiter.api.Assertions.assertEquals")
+      .put("org.junit.Assert.assertNotEquals", "org.junit.jupiter.api.Assertions.assertNotEquals")
+      .put("org.junit.Assert.assertArrayEquals", "org.junit.jupiter.api.Assertions.assertArrayEquals")
+      .put("org.junit.Assert.assertNotNull", "org.junit.jupiter.api.Assertions.assertNotNull")
+      .put("org.junit.Assert.assertNull", "org.junit.jupiter.api.Assertions.assertNull")
+      .put("org.junit.Assert.assertSame", "org.junit.jupiter.api.Assertions.assertSame")
+      .put("org.junit.Assert.assertNotSame", "org.junit.jupiter.api.Assertions.assertNotSame")
+      .put("org.junit.rules.TemporaryFolder", "org.junit.jupiter.api.io.TempDir")
+      .build();
+
+  private static final ImmutableMap<String, String> DEFAULT_ANNOTATIONS = ImmutableMap.<String, String>builder()
+      .put("Before", JUPITER_PACKAGE + "BeforeEach")
+      .put("BeforeClass", JUPITER_PACKAGE + "BeforeAll")
+      .put("After", JUPITER_PACKAGE + "AfterEach")
+      .put("AfterClass", JUPITER_PACKAGE + "AfterAll")
+      .build();
+
+  private static final ImmutableMap<String, String> DEFAULT_RUNNERS = ImmutableMap.<String, String>builder()
+      // spring specific
+      .put("org.springframework.test.context.junit4.SpringRunner",
+          "org.springframework.test.context.junit.jupiter.SpringExtension")
+      .put("org.springframework.test.context.junit4.SpringJUnit4ClassRunner",
+          "org.springframework.test.context.junit.jupiter.SpringExtension")
+      // mockito specific
+      .put("org.mockito.junit.MockitoJUnitRunner", "org.mockito.junit.jupiter.MockitoExtension")
+      .build();
+
+  private static final RewriteRules DEFAULTS = new RewriteRules(DEFAULT_IMPORTS, new HashMap<>(), DEFAULT_ANNOTATIONS,
+      DEFAULT_RUNNERS, ImmutableSet.of());
+
+  private final ImmutableMap<String, String> imports;
+  private final PackageTrie packages;
+  private final ImmutableMap<String, String> annotations;
+  private final ImmutableMap<String, String> runnerExtensions;
+  private final ImmutableSet<String> customNames;
+
+  private RewriteRules(final Map<String, String> importRules, final Map<String, String> packageRules,
+      final Map<String, String> annotationRules, final Map<String, String> runnerRules,
+      final Set<String> customNames) {
+
+    Map<String, String> allImports = new LinkedHashMap<>(importRules);
+    Map<String, String> extensions = new HashMap<>();
+    runnerRules.forEach((runner, extension) -> {
+      allImports.put(runner, extension);
+      extensions.put(runner, simpleName(extension));
+      extensions.put(simpleName(runner), simpleName(extension));
+    });
+
+    // annotation rules map simple names, the targets are qualified to be imported
+    Map<String, String> qualifiedAnnotations = new LinkedHashMap<>();
+    annotationRules.forEach((annotation, target) ->
+        qualifiedAnnotations.put(annotation, target.indexOf('.') < 0 ? JUPITER_PACKAGE + target : target));
+
+    this.imports = ImmutableMap.copyOf(allImports);
+    this.packages = new PackageTrie(packageRules);
+    this.annotations = ImmutableMap.copyOf(qualifiedAnnotations);
+    this.runnerExtensions = ImmutableMap.copyOf(extensions);
+    this.customNames = ImmutableSet.copyOf(customNames);
+  }
+
+  public static RewriteRules defaults() {
+    return DEFAULTS;
+  }
+
+  public static RewriteRules load(final Path configFile) throws IOException {
+    if (!Files.isRegularFile(configFile)) {
+      return DEFAULTS;
+    }
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(configFile, UTF_8)) {
+      properties.load(reader);
+    }
+
+    Map<String, String> importRules = new LinkedHashMap<>(DEFAULT_IMPORTS);
+    Map<String, String> packageRules = new HashMap<>();
+    Map<String, String> annotationRules = new LinkedHashMap<>(DEFAULT_ANNOTATIONS);
+    Map<String, String> runnerRules = new LinkedHashMap<>(DEFAULT_RUNNERS);
+    Set<String> customNames = new LinkedHashSet<>();
+
+    for (String key : properties.stringPropertyNames()) {
+      String value = properties.getProperty(key).trim();
+      if (key.startsWith(IMPORT_PREFIX)) {
+        importRules.put(addName(customNames, key, IMPORT_PREFIX), value);
+      } else if (key.startsWith(PACKAGE_PREFIX)) {
+        packageRules.put(addName(customNames, key, PACKAGE_PREFIX), value);
+      } else if (key.startsWith(ANNOTATION_PREFIX)) {
+        annotationRules.put(addName(customNames, key, ANNOTATION_PREFIX), value);
+      } else if (key.startsWith(RUNNER_PREFIX)) {
+        runnerRules.put(addName(customNames, key, RUNNER_PREFIX), value);
+      } else if (!key.startsWith(DISCOVERY_PREFIX) && !key.startsWith(RESOLUTION_PREFIX)
+          && !key.startsWith(WORKER_PREFIX)) {
+        throw new IOException("Unknown rewrite rule '" + key + "' in " + configFile);
+      }
+    }
+    return new RewriteRules(importRules, packageRules, annotationRules, runnerRules, customNames);
+  }
+
+  private static String addName(final Set<String> names, final String key, final String prefix) {
+    String name = key.substring(prefix.length());
+    names.add(name);
+    return name;
+  }
+
+  // true if an import of or a reference to the fully qualified name is rewritten
+  public boolean rewritesName(final String qualifiedName) {
+    return mapImport(qualifiedName) != null;
+  }
+
+  public boolean rewritesRunner(final String runner) {
+    return extensionForRunner(runner) != null;
+  }
+
+  /**
+   * The imports, packages, annotations and runners of the rules loaded from the properties file, as written there.
+   * A file none of them occurs in can only be rewritten by the built-in rules, which all need an {@code org.junit}
+   * name or {@code RunWith}.
+   */
+  public Set<String> getCustomNames() {
+    return customNames;
+  }
+
+  @Nullable
+  String mapImport(final String name) {
+    String mapped = imports.get(name);
+    return mapped != null ? mapped : packages.map(name);
+  }
+
+  // returns the qualified name replacing the annotation, fully qualified annotations are mapped like imports
+  @Nullable
+  String mapAnnotation(final String name) {
+    return name.indexOf('.') < 0 ? annotations.get(name) : mapImport(name);
+  }
+
+  // returns the simple name of the extension replacing the given runner
+  @Nullable
+  String extensionForRunner(final String runner) {
+    return runnerExtensions.get(runner);
+  }
+
+  static String simpleName(final String qualifiedName) {
+    return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+  }
+
+  /**
+   * Package rules keyed by name segments, the longest matching package wins.
+   */
+  private static final class PackageTrie {
+
+    private final Map<String, PackageTrie> children = new HashMap<>();
+    private String replacement;
+
+    private PackageTrie(final Map<String, String> rules) {
+      rules.forEach(this::insert);
+    }
+
+    private PackageTrie() {
+    }
+
+    private void insert(final String packageName, final String replacement) {
+      PackageTrie node = this;
+      for (String segment : packageName.split("\\.")) {
+        node = node.children.computeIfAbsent(segment, s -> new PackageTrie());
+      }
+      node.replacement = replacement;
+    }
+
+    @Nullable
+    private String map(final String name) {
+      if (children.isEmpty()) {
+        return null;
+      }
+      PackageTrie node = this;
+      String replacement = null;
+      int replacedLength = 0;
+      int start = 0;
+      while (start < name.length()) {
+        int end = name.indexOf('.', start);
+        if (end < 0) {
+          end = name.length();
+        }
+        node = node.children.get(name.substring(start, end));
+        if (node == null) {
+          break;
+        }
+        if (node.replacement != null) {
+          replacement = node.replacement;
+          replacedLength = end;
+        }
+        start = end + 1;
+      }
+      return replacement == null ? null : replacement + name.substring(replacedLength);
+    }
+  }
+}
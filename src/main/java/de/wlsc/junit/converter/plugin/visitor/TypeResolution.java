@@ -0,0 +1,201 @@
+package de.wlsc.junit.converter.plugin.visitor;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.expr.AnnotationExpr;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.resolution.MethodUsage;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves which type an annotation or an assertion call of a test refers to, so that e.g. a Hamcrest
+ * {@code assertThat} or a TestNG {@code @Test} is left alone. Types are looked up in the JDK and the jars of the
+ * classpath by a single type solver shared by all files and threads. Every type and its method names are resolved
+ * once per run and memoized, a file only pays for a few map lookups. The jars are only read once the first name
+ * has to be looked up, names imported explicitly need no lookup at all.
+ * <p>
+ * Names that cannot be resolved are treated as JUnit 4, as without type resolution.
+ */
+public final class TypeResolution {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TypeResolution.class);
+  private static final String JUNIT_PACKAGE = "org.junit.";
+
+  private final List<Path> jars;
+  private final ConcurrentMap<String, Boolean> knownTypes = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Set<String>> methodNames = new ConcurrentHashMap<>();
+  // guarded by itself once built
+  private TypeSolver typeSolver;
+
+  private TypeResolution(final List<Path> jars) {
+    this.jars = jars;
+  }
+
+  // class directories are skipped, the types deciding about a rewrite live in library jars
+  public static TypeResolution create(final Collection<Path> classpath) {
+    return new TypeResolution(classpath.stream()
+        .filter(entry -> entry.toString().endsWith(".jar"))
+        .collect(Collectors.toList()));
+  }
+
+  // reads the jars right away instead of on the first lookup, e.g. before a timed conversion starts
+  public void load() {
+    typeSolver();
+  }
+
+  public synchronized boolean isLoaded() {
+    return typeSolver != null;
+  }
+
+  // true if the annotation resolves to a type that is not part of JUnit
+  boolean isForeign(final CompilationUnit unit, final AnnotationExpr annotation) {
+    return isForeign(qualifiedName(unit, annotation.getNameAsString()));
+  }
+
+  // true if the called method is declared by a type that is not part of JUnit
+  boolean isForeign(final CompilationUnit unit, final MethodCallExpr call) {
+    return isForeign(methodOwner(unit, call));
+  }
+
+  private static boolean isForeign(@Nullable final String qualifiedName) {
+    return qualifiedName != null && !qualifiedName.startsWith(JUNIT_PACKAGE);
+  }
+
+  @Nullable
+  private String methodOwner(final CompilationUnit unit, final MethodCallExpr call) {
+    if (call.getScope().isPresent()) {
+      return qualifiedName(unit, call.getScope().get().toString());
+    }
+    // a single static import shadows on demand ones, wherever it is declared
+    String name = call.getNameAsString();
+    for (ImportDeclaration importDeclaration : unit.getImports()) {
+      String importName = importDeclaration.getNameAsString();
+      if (importDeclaration.isStatic() && !importDeclaration.isAsterisk() && importName.endsWith("." + name)) {
+        return importName.substring(0, importName.length() - name.length() - 1);
+      }
+    }
+    for (ImportDeclaration importDeclaration : unit.getImports()) {
+      if (importDeclaration.isStatic() && importDeclaration.isAsterisk()
+          && declaresMethod(importDeclaration.getNameAsString(), name)) {
+        return importDeclaration.getNameAsString();
+      }
+    }
+    return null;
+  }
+
+  // resolves a type name the way the compiler would: single type imports, own package, on demand imports, java.lang
+  @Nullable
+  private String qualifiedName(final CompilationUnit unit, final String name) {
+    int firstDot = name.indexOf('.');
+    String simpleName = firstDot < 0 ? name : name.substring(0, firstDot);
+    String nested = firstDot < 0 ? "" : name.substring(firstDot);
+
+    for (ImportDeclaration importDeclaration : unit.getImports()) {
+      String importName = importDeclaration.getNameAsString();
+      if (!importDeclaration.isStatic() && !importDeclaration.isAsterisk()
+          && importName.endsWith("." + simpleName)) {
+        return importName + nested;
+      }
+    }
+    if (firstDot > 0 && isKnownType(name)) {
+      return name;
+    }
+    String packagePrefix = unit.getPackageDeclaration()
+        .map(declaration -> declaration.getNameAsString() + ".")
+        .orElse("");
+    if (isKnownType(packagePrefix + name)) {
+      return packagePrefix + name;
+    }
+    for (ImportDeclaration importDeclaration : unit.getImports()) {
+      if (!importDeclaration.isStatic() && importDeclaration.isAsterisk()
+          && isKnownType(importDeclaration.getNameAsString() + "." + name)) {
+        return importDeclaration.getNameAsString() + "." + name;
+      }
+    }
+    return isKnownType("java.lang." + name) ? "java.lang." + name : null;
+  }
+
+  private boolean isKnownType(final String qualifiedName) {
+    Boolean known = knownTypes.get(qualifiedName);
+    if (known == null) {
+      known = solve(qualifiedName).isPresent();
+      knownTypes.put(qualifiedName, known);
+    }
+    return known;
+  }
+
+  private boolean declaresMethod(final String qualifiedName, final String methodName) {
+    Set<String> names = methodNames.get(qualifiedName);
+    if (names == null) {
+      names = solve(qualifiedName)
+          .map(TypeResolution::methodNamesOf)
+          .orElse(Collections.emptySet());
+      methodNames.put(qualifiedName, names);
+    }
+    return names.contains(methodName);
+  }
+
+  private static Set<String> methodNamesOf(final ResolvedReferenceTypeDeclaration type) {
+    try {
+      return type.getAllMethods().stream()
+          .map(MethodUsage::getName)
+          .collect(Collectors.toSet());
+    } catch (RuntimeException e) {
+      // an ancestor is missing on the classpath, the type's own methods are still known
+      return type.getDeclaredMethods().stream()
+          .map(ResolvedMethodDeclaration::getName)
+          .collect(Collectors.toSet());
+    }
+  }
+
+  // type solvers are not thread-safe, misses are rare once the caches are warm
+  private Optional<ResolvedReferenceTypeDeclaration> solve(final String qualifiedName) {
+    TypeSolver typeSolver = typeSolver();
+    synchronized (typeSolver) {
+      try {
+        SymbolReference<ResolvedReferenceTypeDeclaration> reference = typeSolver.tryToSolveType(qualifiedName);
+        return reference.isSolved() ? Optional.of(reference.getCorrespondingDeclaration()) : Optional.empty();
+      } catch (RuntimeException e) {
+        return Optional.empty();
+      }
+    }
+  }
+
+  private synchronized TypeSolver typeSolver() {
+    if (typeSolver == null) {
+      CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver(new ReflectionTypeSolver(true));
+      for (Path jar : jars) {
+        if (!Files.isRegularFile(jar)) {
+          continue;
+        }
+        try {
+          combinedTypeSolver.add(new JarTypeSolver(jar));
+        } catch (IOException | RuntimeException e) {
+          LOGGER.warn("Cannot read " + jar + ", its types are not resolved", e);
+        }
+      }
+      typeSolver = combinedTypeSolver;
+    }
+    return typeSolver;
+  }
+}
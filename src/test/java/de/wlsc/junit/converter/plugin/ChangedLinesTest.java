@@ -0,0 +1,79 @@
+package de.wlsc.junit.converter.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ChangedLinesTest {
+
+  private static final String ORIGINAL = String.join("\n",
+      "import org.junit.Test;",
+      "",
+      "public class ParserTest {",
+      "",
+      "  @Test",
+      "  public void parses() {",
+      "    parse(\"1\");",
+      "  }",
+      "}",
+      "");
+
+  @Test
+  void findsNothingInAnUnchangedSource() {
+    assertArrayEquals(new int[0], ChangedLines.between(ORIGINAL, ORIGINAL));
+  }
+
+  @Test
+  void findsEveryHunkOnItsOwn() {
+    String converted = String.join("\n",
+        "import org.junit.jupiter.api.DisplayName;",
+        "import org.junit.jupiter.api.Test;",
+        "",
+        "@DisplayName(\"Parser Test\")",
+        "class ParserTest {",
+        "",
+        "  @Test",
+        "  @DisplayName(\"Parses\")",
+        "  void parses() {",
+        "    parse(\"1\");",
+        "  }",
+        "}",
+        "");
+
+    assertArrayEquals(new int[]{0, 1, 3, 4, 7, 8}, ChangedLines.between(ORIGINAL, converted));
+  }
+
+  @Test
+  void leavesNoHunkForRemovedLines() {
+    String converted = ORIGINAL.replace("import org.junit.Test;\n\n", "");
+
+    assertArrayEquals(new int[0], ChangedLines.between(ORIGINAL, converted));
+  }
+
+  @Test
+  void findsHunksInWindowsLineSeparators() {
+    String original = ORIGINAL.replace("\n", "\r\n");
+    String converted = original.replace("public void", "void").replace("parse(\"1\")", "parse(\"2\")");
+
+    assertArrayEquals(new int[]{5, 6}, ChangedLines.between(original, converted));
+  }
+
+  @Test
+  void reformatsFromFirstToLastChangedLineBeyondMaximumEdits() {
+    // every other line changed, one more than the diff follows
+    String original = lines(0, ChangedLines.MAX_EDITS + 2);
+    String converted = IntStream.range(0, ChangedLines.MAX_EDITS + 2)
+        .mapToObj(line -> line % 2 == 0 ? "changed " + line : "line " + line)
+        .collect(Collectors.joining("\n", "", "\n"));
+
+    assertArrayEquals(new int[]{0, ChangedLines.MAX_EDITS}, ChangedLines.between(original, converted));
+  }
+
+  private static String lines(final int from, final int to) {
+    return IntStream.range(from, to)
+        .mapToObj(line -> "line " + line)
+        .collect(Collectors.joining("\n", "", "\n"));
+  }
+}
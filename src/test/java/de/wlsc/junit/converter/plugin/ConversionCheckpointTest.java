@@ -0,0 +1,115 @@
+package de.wlsc.junit.converter.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConversionCheckpointTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void handsOnFilesWhileTheyAreDiscovered() throws IOException {
+    Path first = file("FirstTest.java");
+    Path second = file("SecondTest.java");
+    ConversionCheckpoint checkpoint = checkpoint();
+    List<Path> handedOn = new ArrayList<>();
+
+    checkpoint.discovery(sink -> {
+      sink.accept(first);
+      // the first file is converted before discovery goes on, and is already in the checkpoint
+      assertEquals(Arrays.asList(first), handedOn);
+      assertTrue(lines().contains(first.toString()));
+      sink.accept(second);
+    }).find(handedOn::add);
+
+    assertEquals(Arrays.asList(first, second), handedOn);
+  }
+
+  @Test
+  void resumesWithTheCheckpointedFilesAndHandsOnNewOnesOnce() throws IOException {
+    Path first = file("FirstTest.java");
+    Path second = file("SecondTest.java");
+    assertThrows(IllegalStateException.class, () -> checkpoint().discovery(sink -> {
+      sink.accept(first);
+      throw new IllegalStateException("interrupted");
+    }).find(path -> {
+    }));
+    Path added = file("AddedTest.java");
+    List<Path> handedOn = new ArrayList<>();
+
+    checkpoint().discovery(sink -> {
+      sink.accept(added);
+      sink.accept(first);
+      sink.accept(second);
+    }).find(handedOn::add);
+
+    assertEquals(Arrays.asList(first, added, second), handedOn);
+  }
+
+  @Test
+  void resumesWithoutSearchingAgainOnceDiscovered() throws IOException {
+    Path first = file("FirstTest.java");
+    checkpoint().discovery(sink -> sink.accept(first)).find(path -> {
+    });
+    List<Path> handedOn = new ArrayList<>();
+
+    checkpoint().discovery(sink -> {
+      throw new IllegalStateException("searched again");
+    }).find(handedOn::add);
+
+    assertEquals(Arrays.asList(first), handedOn);
+  }
+
+  @Test
+  void startsOverForOtherRules() throws IOException {
+    Path first = file("FirstTest.java");
+    Path second = file("SecondTest.java");
+    checkpoint().discovery(sink -> sink.accept(first)).find(path -> {
+    });
+    List<Path> handedOn = new ArrayList<>();
+
+    ConversionCheckpoint.of(directory.resolve("project.checkpoint"), directory, "other rules")
+        .discovery(sink -> sink.accept(second))
+        .find(handedOn::add);
+
+    assertEquals(Arrays.asList(second), handedOn);
+  }
+
+  @Test
+  void startsOverOnceCompleted() throws IOException {
+    Path first = file("FirstTest.java");
+    Path second = file("SecondTest.java");
+    ConversionCheckpoint completed = checkpoint();
+    completed.discovery(sink -> sink.accept(first)).find(path -> {
+    });
+    completed.complete();
+    List<Path> handedOn = new ArrayList<>();
+
+    checkpoint().discovery(sink -> sink.accept(second)).find(handedOn::add);
+
+    assertEquals(Arrays.asList(second), handedOn);
+  }
+
+  private ConversionCheckpoint checkpoint() {
+    return ConversionCheckpoint.of(directory.resolve("project.checkpoint"), directory, "rules");
+  }
+
+  private List<String> lines() throws IOException {
+    return Files.readAllLines(directory.resolve("project.checkpoint"));
+  }
+
+  private Path file(final String name) throws IOException {
+    return Files.createFile(directory.resolve(name));
+  }
+}
@@ -0,0 +1,87 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConversionIndexTest {
+
+  private static final String RULES = "rules";
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replaysTheJournalOfARunThatNeverSaved() {
+    Path indexFile = directory.resolve("project.index");
+    ConversionIndex crashed = ConversionIndex.load(indexFile, RULES);
+    crashed.record(directory.resolve("ConvertedTest.java"), "1", ConversionOutcome.CONVERTED);
+    crashed.record(directory.resolve("UnchangedTest.java"), "2", ConversionOutcome.UNCHANGED);
+
+    ConversionIndex resumed = ConversionIndex.load(indexFile, RULES);
+
+    assertTrue(resumed.isUpToDate(directory.resolve("ConvertedTest.java"), "1"));
+    assertTrue(resumed.isUpToDate(directory.resolve("UnchangedTest.java"), "2"));
+    assertFalse(resumed.isUpToDate(directory.resolve("ConvertedTest.java"), "3"));
+  }
+
+  @Test
+  void replaysTheJournalOnTopOfTheIndex() {
+    Path indexFile = directory.resolve("project.index");
+    ConversionIndex saved = ConversionIndex.load(indexFile, RULES);
+    saved.record(directory.resolve("FirstTest.java"), "1", ConversionOutcome.CONVERTED);
+    saved.record(directory.resolve("SecondTest.java"), "2", ConversionOutcome.CONVERTED);
+    saved.save();
+    assertFalse(Files.exists(directory.resolve("project.index.journal")));
+
+    ConversionIndex crashed = ConversionIndex.load(indexFile, RULES);
+    crashed.record(directory.resolve("FirstTest.java"), "3", ConversionOutcome.CONVERTED);
+    crashed.forget(directory.resolve("SecondTest.java"));
+
+    ConversionIndex resumed = ConversionIndex.load(indexFile, RULES);
+
+    assertTrue(resumed.isUpToDate(directory.resolve("FirstTest.java"), "3"));
+    assertNull(resumed.hashOf(directory.resolve("SecondTest.java")));
+  }
+
+  @Test
+  void skipsALineCutOffByACrash() throws IOException {
+    Path indexFile = directory.resolve("project.index");
+    ConversionIndex crashed = ConversionIndex.load(indexFile, RULES);
+    crashed.record(directory.resolve("FinishedTest.java"), "1", ConversionOutcome.CONVERTED);
+    Files.write(directory.resolve("project.index.journal"), "CONVERTED\t2".getBytes(UTF_8), APPEND);
+
+    ConversionIndex resumed = ConversionIndex.load(indexFile, RULES);
+
+    assertTrue(resumed.isUpToDate(directory.resolve("FinishedTest.java"), "1"));
+  }
+
+  @Test
+  void discardsAJournalWrittenWithOtherRules() {
+    Path indexFile = directory.resolve("project.index");
+    ConversionIndex crashed = ConversionIndex.load(indexFile, RULES);
+    crashed.record(directory.resolve("FinishedTest.java"), "1", ConversionOutcome.CONVERTED);
+
+    ConversionIndex resumed = ConversionIndex.load(indexFile, "other rules");
+
+    assertNull(resumed.hashOf(directory.resolve("FinishedTest.java")));
+    assertFalse(Files.exists(directory.resolve("project.index.journal")));
+  }
+
+  @Test
+  void keysFilesByTheirNormalizedPath() {
+    ConversionIndex index = ConversionIndex.inMemory();
+    index.record(directory.resolve("FinishedTest.java"), "1", ConversionOutcome.CONVERTED);
+
+    assertEquals("1", index.hashOf(directory.resolve("sub").resolve("..").resolve("FinishedTest.java")));
+  }
+}
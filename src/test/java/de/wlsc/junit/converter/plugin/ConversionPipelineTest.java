@@ -0,0 +1,124 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+@Timeout(10)
+class ConversionPipelineTest {
+
+  private static final int BATCH_SIZE = 4;
+
+  private final List<Path> processed = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  void writesItemsInTheOrderTheyWereEmitted() throws IOException {
+    List<Path> files = files(10);
+    ConversionPipeline<Path> pipeline = pipeline(1);
+    List<List<Path>> batches = new ArrayList<>();
+
+    pipeline.run(sink -> files.forEach(sink), path -> {
+      pipeline.emit(path);
+      return ConversionResult.unchanged(path);
+    }, batch -> batches.add(new ArrayList<>(batch)));
+
+    assertEquals(files, batches.stream().flatMap(List::stream).collect(toList()));
+    assertTrue(batches.stream().allMatch(batch -> !batch.isEmpty() && batch.size() <= BATCH_SIZE));
+    assertEquals(files, processed);
+  }
+
+  @Test
+  void endsOnceEveryWorkerHasSeenTheEndOfFiles() throws IOException {
+    List<Path> files = files(25);
+    ConversionPipeline<Path> pipeline = pipeline(3);
+    List<Path> written = new ArrayList<>();
+
+    pipeline.run(sink -> files.forEach(sink), path -> {
+      pipeline.emit(path);
+      return ConversionResult.unchanged(path);
+    }, written::addAll);
+
+    assertEquals(files.size(), written.size());
+    assertTrue(written.containsAll(files));
+
+    // neither files nor items at all
+    pipeline(3).run(sink -> {
+    }, ConversionResult::unchanged, batch -> {
+      throw new IllegalStateException("nothing to write");
+    });
+  }
+
+  @Test
+  void convertsOneFileAtATimeOnceMemoryRunsLow() throws IOException {
+    ConversionPipeline<Path> pipeline = pipeline(4);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger mostRunning = new AtomicInteger();
+
+    pipeline.onLowMemory();
+    pipeline.run(sink -> files(20).forEach(sink), path -> {
+      mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(2);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      running.decrementAndGet();
+      return ConversionResult.unchanged(path);
+    }, batch -> {
+    });
+
+    assertEquals(1, mostRunning.get());
+    assertEquals(20, processed.size());
+  }
+
+  @Test
+  void reportsAFailedWriteStage() {
+    ConversionPipeline<Path> pipeline = pipeline(2);
+
+    IllegalStateException failure = assertThrows(IllegalStateException.class,
+        () -> pipeline.run(sink -> files(20).forEach(sink), path -> {
+          pipeline.emit(path);
+          return ConversionResult.unchanged(path);
+        }, batch -> {
+          throw new IllegalStateException("disk full");
+        }));
+
+    assertEquals("disk full", failure.getMessage());
+  }
+
+  private ConversionPipeline<Path> pipeline(final int parallelism) {
+    return new ConversionPipeline<>(parallelism, BATCH_SIZE, new ConversionMetrics(), new ConversionProgress() {
+      @Override
+      public boolean isCanceled() {
+        return false;
+      }
+
+      @Override
+      public void fileDiscovered(final Path path) {
+      }
+
+      @Override
+      public void fileProcessed(final ConversionResult result) {
+        processed.add(result.getPath());
+      }
+    });
+  }
+
+  private static List<Path> files(final int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> Paths.get("Test" + i + ".java"))
+        .collect(toList());
+  }
+}
@@ -0,0 +1,86 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+@Timeout(60)
+class ConversionWorkerPoolTest {
+
+  private static final String SOURCE = "class Test {}";
+
+  @TempDir
+  Path directory;
+
+  private final ConversionIndex index = ConversionIndex.inMemory();
+
+  @Test
+  void retiresAWorkerTheTimeoutFiredOn() throws IOException {
+    try (ConversionWorkerPool pool = pool()) {
+      String worker = convert(pool, "FirstTest.java");
+      assertEquals(worker, convert(pool, "SecondTest.java"));
+
+      assertEquals(ConversionOutcome.FAILED, convert(pool, file(FakeConversionWorker.HANG + "Test.java")));
+      assertNotEquals(worker, convert(pool, "ThirdTest.java"));
+    }
+  }
+
+  @Test
+  void replacesACrashedWorker() throws IOException {
+    try (ConversionWorkerPool pool = pool()) {
+      String worker = convert(pool, "FirstTest.java");
+
+      assertEquals(ConversionOutcome.FAILED, convert(pool, file(FakeConversionWorker.CRASH + "Test.java")));
+      assertNotEquals(worker, convert(pool, "SecondTest.java"));
+    }
+  }
+
+  @Test
+  void countsAFileReplacedBeforeTheTimeoutAsConverted() throws IOException {
+    try (ConversionWorkerPool pool = pool()) {
+      Path path = file(FakeConversionWorker.WRITE + "Test.java");
+
+      assertEquals(ConversionOutcome.CONVERTED, convert(pool, path));
+      assertEquals(ConversionIndex.hash(Files.readAllBytes(path)), index.hashOf(path));
+    }
+  }
+
+  // a single worker, every file goes to the idle one unless it was retired
+  private ConversionWorkerPool pool() throws IOException {
+    Path settingsFile = Files.write(directory.resolve(ConversionOptions.RULES_FILE_NAME),
+        String.join("\n", "worker.processes=1", "worker.timeout=1000").getBytes(UTF_8));
+    List<Path> classpath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+        .map(Paths::get)
+        .collect(toList());
+    return new ConversionWorkerPool(WorkerSettings.load(settingsFile), ConversionOptions.defaults(), settingsFile,
+        null, classpath, null, FakeConversionWorker.class.getName());
+  }
+
+  // the process id of the worker which converted the file
+  private String convert(final ConversionWorkerPool pool, final String name) throws IOException {
+    Path path = file(name);
+    assertEquals(ConversionOutcome.UNCHANGED, convert(pool, path));
+    return index.hashOf(path);
+  }
+
+  private ConversionOutcome convert(final ConversionWorkerPool pool, final Path path) throws IOException {
+    String hash = ConversionIndex.hash(Files.readAllBytes(path));
+    return pool.convert(path, hash, index, new ConversionMetrics()).getOutcome();
+  }
+
+  private Path file(final String name) throws IOException {
+    return Files.write(directory.resolve(name), SOURCE.getBytes(UTF_8));
+  }
+}
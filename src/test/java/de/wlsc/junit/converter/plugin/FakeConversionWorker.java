@@ -0,0 +1,74 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.wlsc.junit.converter.plugin.ConversionMetrics.Phase;
+import de.wlsc.junit.converter.plugin.visitor.Rewrite;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Stands in for {@link ConversionWorker} in {@link ConversionWorkerPoolTest}, it converts nothing and acts on the
+ * file name instead: {@code Crash*} exits, {@code Hang*} never replies, {@code Write*} replaces the file and then
+ * hangs. Every other file is answered as unchanged, with the worker's process id as hash.
+ */
+final class FakeConversionWorker {
+
+  static final String CRASH = "Crash";
+  static final String HANG = "Hang";
+  static final String WRITE = "Write";
+
+  private FakeConversionWorker() {
+  }
+
+  public static void main(final String[] args) throws IOException, InterruptedException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+    // output mode, lazy method bodies, rules file and no libraries
+    in.readUTF();
+    in.readBoolean();
+    in.readUTF();
+    in.readBoolean();
+    out.writeBoolean(true);
+    out.flush();
+
+    while (true) {
+      Path path;
+      try {
+        path = Paths.get(in.readUTF());
+      } catch (EOFException e) {
+        return;
+      }
+      String name = path.getFileName().toString();
+      if (name.startsWith(CRASH)) {
+        System.exit(1);
+      }
+      if (name.startsWith(WRITE)) {
+        Files.write(path, "converted".getBytes(UTF_8));
+      }
+      if (name.startsWith(HANG) || name.startsWith(WRITE)) {
+        Thread.sleep(Long.MAX_VALUE);
+      }
+      out.writeUTF(ConversionOutcome.UNCHANGED.name());
+      out.writeInt(0);
+      out.writeUTF(String.valueOf(ProcessHandle.current().pid()));
+      for (Phase ignored : Phase.values()) {
+        out.writeLong(0);
+      }
+      for (Rewrite ignored : Rewrite.values()) {
+        out.writeInt(0);
+      }
+      out.flush();
+    }
+  }
+}
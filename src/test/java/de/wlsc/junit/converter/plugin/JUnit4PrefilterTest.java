@@ -0,0 +1,56 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JUnit4PrefilterTest {
+
+  private static final JUnit4Prefilter DEFAULTS = JUnit4Prefilter.forRules(RewriteRules.defaults());
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void passesJUnit4References() {
+    assertTrue(DEFAULTS.mayContainJUnit4(bytes("import org.junit.Test;")));
+    assertTrue(DEFAULTS.mayContainJUnit4(bytes("@org.junit.Test void test() {}")));
+    assertTrue(DEFAULTS.mayContainJUnit4(bytes("import org.junit.jupiter.api.Test; @RunWith(Acme.class)")));
+  }
+
+  @Test
+  void screensOutJUnit5AndUnrelatedFiles() {
+    assertFalse(DEFAULTS.mayContainJUnit4(bytes("import org.junit.jupiter.api.Test;")));
+    assertFalse(DEFAULTS.mayContainJUnit4(bytes("import org.junit.platform.suite.api.Suite;")));
+    assertFalse(DEFAULTS.mayContainJUnit4(bytes("import org.acme.junit4.AcmeTest; @AcmeBefore void setUp() {}")));
+    assertFalse(DEFAULTS.mayContainJUnit4(new byte[0]));
+  }
+
+  @Test
+  void passesFilesMentioningCustomRules() throws IOException {
+    JUnit4Prefilter prefilter = forRules(
+        "package.org.acme.junit4=org.acme.junit5",
+        "annotation.AcmeBefore=BeforeEach");
+
+    assertTrue(prefilter.mayContainJUnit4(bytes("import org.acme.junit4.AcmeTest;")));
+    assertTrue(prefilter.mayContainJUnit4(bytes("@AcmeBefore void setUp() {}")));
+    assertFalse(prefilter.mayContainJUnit4(bytes("import org.acme.junit5.AcmeTest;")));
+  }
+
+  private JUnit4Prefilter forRules(final String... lines) throws IOException {
+    Path rulesFile = Files.write(directory.resolve(".junit5-converter.properties"), Arrays.asList(lines), UTF_8);
+    return JUnit4Prefilter.forRules(RewriteRules.load(rulesFile));
+  }
+
+  private static byte[] bytes(final String source) {
+    return source.getBytes(UTF_8);
+  }
+}
@@ -0,0 +1,269 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.wlsc.junit.converter.plugin.visitor.RewriteRules;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JUnit5ConverterTest {
+
+  @TempDir
+  Path directory;
+
+  private static final Path PATH = Paths.get("FolderTest.java");
+  private static final String TEMPORARY_FOLDER = String.join("\n",
+      "import java.io.File;",
+      "import org.junit.Rule;",
+      "import org.junit.Test;",
+      "import org.junit.rules.TemporaryFolder;",
+      "",
+      "public class FolderTest {",
+      "",
+      "  @Rule",
+      "  public TemporaryFolder folder = new TemporaryFolder();",
+      "",
+      "  @Test",
+      "  public void createsFile() throws Exception {",
+      "    File file = folder.newFile(\"file.txt\");",
+      "  }",
+      "}",
+      "");
+  private static final String EXPECTED_EXCEPTION = String.join("\n",
+      "import static org.junit.Assert.assertEquals;",
+      "",
+      "import org.junit.Assert;",
+      "import org.junit.Test;",
+      "",
+      "public class ParserTest {",
+      "",
+      "  @Test(expected = IllegalArgumentException.class)",
+      "  public void rejectsNegative() throws Exception {",
+      "    assertEquals(\"sign\", -1, sign(\"-1\"));",
+      "    // not reached",
+      "    Assert.assertTrue(\"parsed\", parse(\"-1\"));",
+      "  }",
+      "}",
+      "");
+
+  @Test
+  void convertsTemporaryFolderPreservingLayout() {
+    String converted = convert(TEMPORARY_FOLDER, OutputMode.LEXICAL_PRESERVING);
+
+    assertEquals(String.join("\n",
+        "import java.io.File;",
+        "import java.nio.file.Path;",
+        "import org.junit.jupiter.api.DisplayName;",
+        "import org.junit.jupiter.api.Test;",
+        "import org.junit.jupiter.api.io.TempDir;",
+        "",
+        "@DisplayName(\"Folder Test\")",
+        "class FolderTest {",
+        "",
+        "  @TempDir",
+        "  public Path folder;",
+        "",
+        "  @Test",
+        "  @DisplayName(\"Creates File\")",
+        "  void createsFile() throws Exception {",
+        "    File file = folder.resolve(\"file.txt\").toFile();",
+        "  }",
+        "}",
+        ""), converted);
+  }
+
+  @Test
+  void convertsTemporaryFolderPrettyPrinted() {
+    String converted = convert(TEMPORARY_FOLDER, OutputMode.PRETTY_PRINT);
+
+    assertEquals(String.join("\n",
+        "import java.io.File;",
+        "import java.nio.file.Path;",
+        "import org.junit.jupiter.api.DisplayName;",
+        "import org.junit.jupiter.api.Test;",
+        "import org.junit.jupiter.api.io.TempDir;",
+        "",
+        "@DisplayName(\"Folder Test\")",
+        "class FolderTest {",
+        "",
+        "    @TempDir",
+        "    public Path folder;",
+        "",
+        "    @Test",
+        "    @DisplayName(\"Creates File\")",
+        "    void createsFile() throws Exception {",
+        "        File file = folder.resolve(\"file.txt\").toFile();",
+        "    }",
+        "}",
+        ""), converted);
+  }
+
+  @Test
+  void wrapsExpectedExceptionAndMovesMessagesPreservingLayout() {
+    String converted = convert(EXPECTED_EXCEPTION.replace("\n", "\r\n"), OutputMode.LEXICAL_PRESERVING);
+
+    assertEquals(String.join("\r\n",
+        "import static org.junit.jupiter.api.Assertions.assertEquals;",
+        "import static org.junit.jupiter.api.Assertions.assertThrows;",
+        "",
+        "import org.junit.jupiter.api.Assertions;",
+        "import org.junit.jupiter.api.DisplayName;",
+        "import org.junit.jupiter.api.Test;",
+        "",
+        "@DisplayName(\"Parser Test\")",
+        "class ParserTest {",
+        "",
+        "  @Test",
+        "  @DisplayName(\"Rejects Negative\")",
+        "  void rejectsNegative() {",
+        "    assertThrows(IllegalArgumentException.class, () -> {",
+        "      assertEquals(-1, sign(\"-1\"), \"sign\");",
+        "      // not reached",
+        "      Assertions.assertTrue(parse(\"-1\"), \"parsed\");",
+        "    });",
+        "  }",
+        "}",
+        ""), converted);
+  }
+
+  @Test
+  void wrapsExpectedExceptionAndMovesMessagesPrettyPrinted() {
+    String converted = convert(EXPECTED_EXCEPTION, OutputMode.PRETTY_PRINT);
+
+    assertEquals(String.join("\n",
+        "import static org.junit.jupiter.api.Assertions.assertEquals;",
+        "import static org.junit.jupiter.api.Assertions.assertThrows;",
+        "import org.junit.jupiter.api.Assertions;",
+        "import org.junit.jupiter.api.DisplayName;",
+        "import org.junit.jupiter.api.Test;",
+        "",
+        "@DisplayName(\"Parser Test\")",
+        "class ParserTest {",
+        "",
+        "    @Test",
+        "    @DisplayName(\"Rejects Negative\")",
+        "    void rejectsNegative() {",
+        "        assertThrows(IllegalArgumentException.class, () -> {",
+        "            assertEquals(-1, sign(\"-1\"), \"sign\");",
+        "            // not reached",
+        "            Assertions.assertTrue(parse(\"-1\"), \"parsed\");",
+        "        });",
+        "    }",
+        "}",
+        ""), converted);
+  }
+
+  @Test
+  void wrapsExpectedExceptionInTimeout() {
+    String converted = convert(String.join("\n",
+        "import org.junit.Test;",
+        "import org.junit.runner.RunWith;",
+        "",
+        "@RunWith(MockitoJUnitRunner.class)",
+        "class TimeoutTest {",
+        "  @Test(expected = NullPointerException.class, timeout = 200L)",
+        "  void rejectsNullInTime() {",
+        "    parse(null);",
+        "  }",
+        "}",
+        ""), OutputMode.LEXICAL_PRESERVING);
+
+    assertEquals(String.join("\n",
+        "import static java.time.Duration.ofMillis;",
+        "import static org.junit.jupiter.api.Assertions.assertThrows;",
+        "import static org.junit.jupiter.api.Assertions.assertTimeout;",
+        "import org.junit.jupiter.api.DisplayName;",
+        "import org.junit.jupiter.api.Test;",
+        "import org.junit.jupiter.api.extension.ExtendWith;",
+        "",
+        "@ExtendWith(MockitoExtension.class)",
+        "@DisplayName(\"Timeout Test\")",
+        "class TimeoutTest {",
+        "  @Test",
+        "  @DisplayName(\"Rejects Null In Time\")",
+        "  void rejectsNullInTime() {",
+        "    assertTimeout(ofMillis(200), () -> {",
+        "      assertThrows(NullPointerException.class, () -> {",
+        "        parse(null);",
+        "      });",
+        "    });",
+        "  }",
+        "}",
+        ""), converted);
+  }
+
+  @Test
+  void movesOnlyMessagesOfJUnitAssertions() {
+    String converted = convert(String.join("\n",
+        "import org.junit.Assert;",
+        "import org.junit.Test;",
+        "",
+        "class SoftlyTest {",
+        "  @Test",
+        "  void softly() {",
+        "    softly.assertEquals(\"sum\", 2, 1 + 1);",
+        "    collector.assertTrue(\"positive\", 1 > 0);",
+        "    Assert.assertTrue(\"positive\", 1 > 0);",
+        "    Assert.assertNotEquals(\"sum\", text);",
+        "  }",
+        "}",
+        ""), OutputMode.LEXICAL_PRESERVING);
+
+    assertTrue(converted.contains("    softly.assertEquals(\"sum\", 2, 1 + 1);\n"));
+    assertTrue(converted.contains("    collector.assertTrue(\"positive\", 1 > 0);\n"));
+    assertTrue(converted.contains("    Assertions.assertTrue(1 > 0, \"positive\");\n"));
+    assertTrue(converted.contains("    Assertions.assertNotEquals(\"sum\", text);\n"));
+  }
+
+  @Test
+  void importsTheTargetsOfAnnotationRules() throws IOException {
+    Path rulesFile = Files.write(directory.resolve(".junit5-converter.properties"),
+        Arrays.asList("annotation.AcmeBefore=BeforeEach", "package.org.acme.junit4=org.acme.junit5"), UTF_8);
+    ConversionOptions options = ConversionOptions.defaults()
+        .withOutputMode(OutputMode.LEXICAL_PRESERVING)
+        .withRewriteRules(RewriteRules.load(rulesFile));
+
+    String converted = JUnit5Converter.INSTANCE.convertSource(PATH, String.join("\n",
+        "import org.acme.AcmeBefore;",
+        "",
+        "class AcmeTest {",
+        "  @AcmeBefore",
+        "  void setUp() {",
+        "  }",
+        "",
+        "  @org.acme.junit4.AcmeTimeout",
+        "  void tearDown() {",
+        "  }",
+        "}",
+        ""), options, new ConversionMetrics());
+
+    assertEquals(String.join("\n",
+        "import org.acme.AcmeBefore;",
+        "import org.junit.jupiter.api.BeforeEach;",
+        "import org.junit.jupiter.api.DisplayName;",
+        "",
+        "@DisplayName(\"Acme Test\")",
+        "class AcmeTest {",
+        "  @BeforeEach",
+        "  void setUp() {",
+        "  }",
+        "",
+        "  @org.acme.junit5.AcmeTimeout",
+        "  void tearDown() {",
+        "  }",
+        "}",
+        ""), converted);
+  }
+
+  private static String convert(final String source, final OutputMode outputMode) {
+    return JUnit5Converter.INSTANCE.convertSource(PATH, source, ConversionOptions.defaults().withOutputMode(outputMode),
+        new ConversionMetrics());
+  }
+}
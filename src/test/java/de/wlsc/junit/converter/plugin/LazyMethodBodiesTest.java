@@ -0,0 +1,171 @@
+package de.wlsc.junit.converter.plugin;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+
+class LazyMethodBodiesTest {
+
+  private static final Path PATH = Paths.get("HelperTest.java");
+  private static final String HELPER_TEST = String.join("\n",
+      "import org.junit.Assert;",
+      "import org.junit.Test;",
+      "",
+      "public class HelperTest {",
+      "",
+      "  @Test",
+      "  public void adds() {",
+      "    Assert.assertEquals(\"sum\", 2, add(1, 1));",
+      "  }",
+      "",
+      "  private int add(final int a, final int b) {",
+      "    int sum = a;",
+      "    sum += b;",
+      "    return sum;",
+      "  }",
+      "}",
+      "");
+
+  @Test
+  void elidesHelperBodiesOnly() {
+    LazyMethodBodies bodies = LazyMethodBodies.elide(HELPER_TEST);
+
+    assertTrue(bodies.getSource().contains("Assert.assertEquals(\"sum\", 2, add(1, 1));"));
+    assertFalse(bodies.getSource().contains("sum += b;"));
+    assertEquals(lines(HELPER_TEST), lines(bodies.getSource()));
+    assertEquals(HELPER_TEST, bodies.restore(bodies.getSource()));
+  }
+
+  @Test
+  void keepsBodiesOfAnnotatedMethodsAndLocalClasses() {
+    String source = String.join("\n",
+        "class HelperTest {",
+        "  @Before",
+        "  void setUp() {",
+        "    start();",
+        "  }",
+        "",
+        "  void nested() {",
+        "    class Local {",
+        "    }",
+        "  }",
+        "}",
+        "");
+
+    assertEquals(source, LazyMethodBodies.elide(source).getSource());
+  }
+
+  @Test
+  void elidesMethodBodiesOfEnumConstants() {
+    String source = String.join("\n",
+        "enum Operation {",
+        "  PLUS {",
+        "    int apply(int a, int b) {",
+        "      return a + b;",
+        "    }",
+        "  },",
+        "  NONE;",
+        "",
+        "  int apply(int a, int b) {",
+        "    return 0;",
+        "  }",
+        "}",
+        "");
+
+    LazyMethodBodies bodies = LazyMethodBodies.elide(source);
+
+    assertFalse(bodies.getSource().contains("return a + b;"));
+    assertFalse(bodies.getSource().contains("return 0;"));
+    assertTrue(bodies.getSource().contains("NONE;"));
+    assertEquals(source, bodies.restore(bodies.getSource()));
+  }
+
+  @Test
+  void readsBracesInAnnotationParenthesesAsPartOfTheMember() {
+    String source = String.join("\n",
+        "class HelperTest {",
+        "  @SuppressWarnings({\"unchecked\", \"rawtypes\"})",
+        "  void helper() {",
+        "    run();",
+        "  }",
+        "",
+        "  @Test(expected = {IllegalStateException.class})",
+        "  void fails() {",
+        "    run();",
+        "  }",
+        "}",
+        "");
+
+    LazyMethodBodies bodies = LazyMethodBodies.elide(source);
+
+    assertTrue(bodies.getSource().contains("void helper() {/*junit5-converter:body:0*/"));
+    assertTrue(bodies.getSource().contains("void fails() {\n    run();\n  }"));
+    assertEquals(source, bodies.restore(bodies.getSource()));
+  }
+
+  @Test
+  void skipsBracesInTextBlocks() {
+    String source = String.join("\n",
+        "class HelperTest {",
+        "  String template() {",
+        "    return \"\"\"",
+        "      } {\"",
+        "      \"\"\";",
+        "  }",
+        "",
+        "  String header = \"\"\"",
+        "    void notAMethod() {",
+        "    \"\"\";",
+        "}",
+        "");
+
+    LazyMethodBodies bodies = LazyMethodBodies.elide(source);
+
+    assertFalse(bodies.getSource().contains("} {\""));
+    assertTrue(bodies.getSource().contains("void notAMethod() {"));
+    assertEquals(source, bodies.restore(bodies.getSource()));
+  }
+
+  @Test
+  void rejectsPrintsWithoutEveryPlaceholder() {
+    LazyMethodBodies bodies = LazyMethodBodies.elide(HELPER_TEST);
+
+    assertNull(bodies.restore(HELPER_TEST));
+  }
+
+  @Test
+  void restoresHelperBodiesAfterLexicalPrintingByteForByte() {
+    String source = HELPER_TEST.replace("\n", "\r\n");
+    LazyMethodBodies bodies = LazyMethodBodies.elide(source);
+    CompilationUnit unit = ParserPool.get(OutputMode.LEXICAL_PRESERVING).parse(bodies.getSource())
+        .getResult().orElseThrow();
+    LexicalPreservingPrinter.setup(unit);
+
+    assertEquals(source, bodies.restore(LexicalPreservingPrinter.print(unit)));
+  }
+
+  @Test
+  void convertsTheSameWithAndWithoutHelperBodies() {
+    String source = HELPER_TEST.replace("\n", "\r\n");
+    ConversionOptions options = ConversionOptions.defaults().withOutputMode(OutputMode.LEXICAL_PRESERVING);
+
+    String lazy = JUnit5Converter.INSTANCE.convertSource(PATH, source, options.withLazyMethodBodies(true),
+        new ConversionMetrics());
+
+    assertEquals(JUnit5Converter.INSTANCE.convertSource(PATH, source, options.withLazyMethodBodies(false),
+        new ConversionMetrics()), lazy);
+    assertTrue(lazy.contains("  private int add(final int a, final int b) {\r\n    int sum = a;\r\n"
+        + "    sum += b;\r\n    return sum;\r\n  }\r\n"));
+  }
+
+  private static long lines(final String text) {
+    return text.chars().filter(c -> c == '\n').count();
+  }
+}
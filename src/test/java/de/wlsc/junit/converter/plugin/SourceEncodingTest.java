@@ -0,0 +1,114 @@
+package de.wlsc.junit.converter.plugin;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SourceEncodingTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void acceptsWellFormedUtf8() {
+    assertTrue(SourceEncoding.isUtf8(bytes()));
+    assertTrue(SourceEncoding.isUtf8("class Test {}".getBytes(UTF_8)));
+    assertTrue(SourceEncoding.isUtf8("// Gr\u00fc\u00dfe, \u2713, \ud83d\ude00".getBytes(UTF_8)));
+  }
+
+  @Test
+  void rejectsMalformedUtf8() {
+    // a Latin-1 umlaut
+    assertFalse(SourceEncoding.isUtf8(bytes(0x47, 0x72, 0xFC, 0x65)));
+    // a lead byte without its continuation byte, also at the end
+    assertFalse(SourceEncoding.isUtf8(bytes(0xC3, 0x41)));
+    assertFalse(SourceEncoding.isUtf8(bytes(0x41, 0xC3)));
+    // overlong encodings of '/'
+    assertFalse(SourceEncoding.isUtf8(bytes(0xC0, 0xAF)));
+    assertFalse(SourceEncoding.isUtf8(bytes(0xE0, 0x80, 0xAF)));
+    // a surrogate and a code point above U+10FFFF
+    assertFalse(SourceEncoding.isUtf8(bytes(0xED, 0xA0, 0x80)));
+    assertFalse(SourceEncoding.isUtf8(bytes(0xF4, 0x90, 0x80, 0x80)));
+  }
+
+  @Test
+  void findsTheLineSeparator() {
+    assertEquals("\n", SourceEncoding.lineSeparator("a\nb\n".getBytes(UTF_8)));
+    assertEquals("\r\n", SourceEncoding.lineSeparator("a\r\nb\r\n".getBytes(UTF_8)));
+    assertEquals("\r", SourceEncoding.lineSeparator("a\rb\r".getBytes(UTF_8)));
+    assertEquals("\n", SourceEncoding.lineSeparator("class Test {}".getBytes(UTF_8)));
+    assertNull(SourceEncoding.lineSeparator("a\r\nb\n".getBytes(UTF_8)));
+  }
+
+  @Test
+  void writesTheLineSeparatorOfTheSource() throws IOException {
+    Path file = write("a\r\nb\r\n".getBytes(UTF_8));
+    SourceEncoding encoding = SourceEncoding.detect(Files.readAllBytes(file));
+
+    String hash = encoding.write(file, "a\nb\nc\n");
+
+    assertArrayEquals("a\r\nb\r\nc\r\n".getBytes(UTF_8), Files.readAllBytes(file));
+    assertEquals(ConversionIndex.hash(Files.readAllBytes(file)), hash);
+  }
+
+  @Test
+  void writesMixedSeparatorsAsPrinted() throws IOException {
+    Path file = write("a\r\nb\n".getBytes(UTF_8));
+
+    SourceEncoding.detect(Files.readAllBytes(file)).write(file, "a\r\nb\nc\n");
+
+    assertArrayEquals("a\r\nb\nc\n".getBytes(UTF_8), Files.readAllBytes(file));
+  }
+
+  @Test
+  void keepsByteOrderMarkAndUnknownCharsets() throws IOException {
+    byte[] withBom = bytes(0xEF, 0xBB, 0xBF, 0x61, 0x0A);
+    Path file = write(withBom);
+    SourceEncoding encoding = SourceEncoding.detect(withBom);
+
+    assertEquals("a\n", encoding.decode(withBom));
+    encoding.write(file, "a\n");
+    assertArrayEquals(withBom, Files.readAllBytes(file));
+
+    byte[] latin1 = "// Gr\u00fc\u00dfe\n".getBytes(ISO_8859_1);
+    encoding = SourceEncoding.detect(latin1);
+    encoding.write(file, encoding.decode(latin1));
+    assertArrayEquals(latin1, Files.readAllBytes(file));
+  }
+
+  @Test
+  void replacesTheFileBehindSymbolicLinksWithItsPermissions() throws IOException {
+    Path file = write("a\n".getBytes(UTF_8));
+    Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rwxr-x---"));
+    Path link = Files.createSymbolicLink(directory.resolve("Link.java"), file);
+
+    SourceEncoding.detect(Files.readAllBytes(link)).write(link, "b\n");
+
+    assertTrue(Files.isSymbolicLink(link));
+    assertArrayEquals("b\n".getBytes(UTF_8), Files.readAllBytes(file));
+    assertEquals(PosixFilePermissions.fromString("rwxr-x---"), Files.getPosixFilePermissions(file));
+  }
+
+  private Path write(final byte[] content) throws IOException {
+    return Files.write(directory.resolve("Test.java"), content);
+  }
+
+  private static byte[] bytes(final int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,107 @@
+package de.wlsc.junit.converter.plugin.visitor;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RewriteRulesTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void mapsNamesBelowTheLongestMatchingPackage() throws IOException {
+    RewriteRules rules = load(
+        "package.org.acme=org.acme5",
+        "package.org.acme.junit4=org.acme.junit5",
+        "package.org.acme.junit4.rules=org.acme.extensions");
+
+    assertEquals("org.acme5.Helper", rules.mapImport("org.acme.Helper"));
+    assertEquals("org.acme.junit5.AcmeTest", rules.mapImport("org.acme.junit4.AcmeTest"));
+    assertEquals("org.acme.junit5.runner.AcmeRunner", rules.mapImport("org.acme.junit4.runner.AcmeRunner"));
+    assertEquals("org.acme.extensions.TimeoutRule", rules.mapImport("org.acme.junit4.rules.TimeoutRule"));
+  }
+
+  @Test
+  void mapsWholeSegmentsOnly() throws IOException {
+    RewriteRules rules = load("package.org.acme.junit4=org.acme.junit5");
+
+    assertNull(rules.mapImport("org.acme.junit41.AcmeTest"));
+    assertNull(rules.mapImport("org.acme.AcmeTest"));
+    assertNull(rules.mapImport("com.acme.junit4.AcmeTest"));
+    assertEquals("org.acme.junit5", rules.mapImport("org.acme.junit4"));
+  }
+
+  @Test
+  void prefersImportRulesOverPackageRules() throws IOException {
+    RewriteRules rules = load(
+        "package.org.acme.junit4=org.acme.junit5",
+        "import.org.acme.junit4.AcmeRule=org.acme.AcmeExtension");
+
+    assertEquals("org.acme.AcmeExtension", rules.mapImport("org.acme.junit4.AcmeRule"));
+    assertEquals("org.acme.junit5.AcmeTest", rules.mapImport("org.acme.junit4.AcmeTest"));
+  }
+
+  @Test
+  void keepsBuiltInRules() throws IOException {
+    RewriteRules rules = load("package.org.acme.junit4=org.acme.junit5");
+
+    assertEquals("org.junit.jupiter.api.Test", rules.mapImport("org.junit.Test"));
+    assertEquals("org.junit.jupiter.api.BeforeEach", rules.mapAnnotation("Before"));
+    assertEquals("MockitoExtension", rules.extensionForRunner("MockitoJUnitRunner"));
+  }
+
+  @Test
+  void keepsImportAndAnnotationRulesApart() throws IOException {
+    RewriteRules rules = load(
+        "import.org.acme.AcmeRule=org.acme.AcmeExtension",
+        "package.org.acme.junit4=org.acme.junit5",
+        "annotation.AcmeBefore=BeforeEach",
+        "annotation.AcmeAfter=org.acme.AcmeAfterEach");
+
+    assertEquals("org.junit.jupiter.api.BeforeEach", rules.mapAnnotation("AcmeBefore"));
+    assertEquals("org.acme.AcmeAfterEach", rules.mapAnnotation("AcmeAfter"));
+    assertNull(rules.mapImport("AcmeBefore"));
+    assertNull(rules.mapAnnotation("AcmeRule"));
+    assertEquals("org.acme.AcmeExtension", rules.mapAnnotation("org.acme.AcmeRule"));
+    assertEquals("org.acme.junit5.AcmeTimeout", rules.mapAnnotation("org.acme.junit4.AcmeTimeout"));
+    assertEquals("org.junit.jupiter.api.AfterAll", rules.mapAnnotation("org.junit.AfterClass"));
+  }
+
+  @Test
+  void collectsCustomNames() throws IOException {
+    RewriteRules rules = load(
+        "import.org.acme.AcmeRule=org.acme.AcmeExtension",
+        "package.org.acme.junit4=org.acme.junit5",
+        "annotation.AcmeBefore=BeforeEach",
+        "runner.org.acme.AcmeRunner=org.acme.AcmeExtension",
+        "discovery.include=*Spec.java",
+        "worker.processes=2");
+
+    assertEquals(Set.of("org.acme.AcmeRule", "org.acme.junit4", "AcmeBefore", "org.acme.AcmeRunner"),
+        rules.getCustomNames());
+    assertTrue(RewriteRules.defaults().getCustomNames().isEmpty());
+  }
+
+  @Test
+  void rejectsUnknownKeys() throws IOException {
+    IOException error = assertThrows(IOException.class, () -> load("rule.org.acme.AcmeRule=org.acme.AcmeExtension"));
+
+    assertTrue(error.getMessage().contains("rule.org.acme.AcmeRule"));
+  }
+
+  private RewriteRules load(final String... lines) throws IOException {
+    Path rulesFile = Files.write(directory.resolve(".junit5-converter.properties"), Arrays.asList(lines), UTF_8);
+    return RewriteRules.load(rulesFile);
+  }
+}
@@ -0,0 +1,72 @@
+package de.wlsc.junit.converter.plugin.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TypeResolutionTest {
+
+  private final TypeResolution types = TypeResolution.create(Collections.emptyList());
+
+  @Test
+  void resolvesCallsThroughOnDemandStaticImports() {
+    CompilationUnit unit = StaticJavaParser.parse(String.join("\n",
+        "import static java.util.Objects.*;",
+        "class ObjectsTest {",
+        "  void test() { requireNonNull(this); }",
+        "}"));
+
+    assertTrue(types.isForeign(unit, call(unit)));
+  }
+
+  @Test
+  void prefersSingleStaticImportsDeclaredAfterOnDemandOnes() {
+    CompilationUnit unit = StaticJavaParser.parse(String.join("\n",
+        "import static java.util.Objects.*;",
+        "import static org.junit.Assert.hash;",
+        "class ObjectsTest {",
+        "  void test() { hash(this); }",
+        "}"));
+
+    assertFalse(types.isForeign(unit, call(unit)));
+  }
+
+  @Test
+  void prefersSingleStaticImportsDeclaredBeforeOnDemandOnes() {
+    CompilationUnit unit = StaticJavaParser.parse(String.join("\n",
+        "import static org.junit.Assert.*;",
+        "import static java.util.Objects.hash;",
+        "class ObjectsTest {",
+        "  void test() { hash(this); }",
+        "}"));
+
+    assertTrue(types.isForeign(unit, call(unit)));
+  }
+
+  @Test
+  void readsJarsOnFirstLookupOnly(@TempDir final Path directory) {
+    TypeResolution lazy = TypeResolution.create(Collections.singletonList(directory.resolve("missing.jar")));
+    CompilationUnit unit = StaticJavaParser.parse(String.join("\n",
+        "import static org.junit.Assert.assertEquals;",
+        "class ExplicitTest {",
+        "  void test() { assertEquals(1, 1); }",
+        "}"));
+
+    assertFalse(lazy.isForeign(unit, call(unit)));
+    assertFalse(lazy.isLoaded());
+
+    lazy.load();
+    assertTrue(lazy.isLoaded());
+  }
+
+  private static MethodCallExpr call(final CompilationUnit unit) {
+    return unit.findFirst(MethodCallExpr.class).orElseThrow();
+  }
+}